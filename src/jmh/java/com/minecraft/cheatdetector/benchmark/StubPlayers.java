@@ -0,0 +1,100 @@
+package com.minecraft.cheatdetector.benchmark;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.entity.player.PlayerAbilities;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.PlayerManager;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Stubbed server and players for the detector benchmarks.
+ * Players are stub-only mocks whose position is read from a mutable holder,
+ * so a benchmark can move them without re-stubbing.
+ */
+public final class StubPlayers {
+    private static boolean bootstrapped;
+    
+    private final MinecraftServer server;
+    private final List<ServerPlayerEntity> players = new ArrayList<>();
+    private final Vec3d[] positions;
+    
+    /**
+     * Create a stubbed server with the given number of online players.
+     * @param count The number of players
+     */
+    public StubPlayers(int count) {
+        bootstrap();
+        
+        this.server = mock(MinecraftServer.class, withSettings().stubOnly());
+        PlayerManager playerManager = mock(PlayerManager.class, withSettings().stubOnly());
+        when(server.getPlayerManager()).thenReturn(playerManager);
+        when(playerManager.getPlayerList()).thenReturn(players);
+        
+        this.positions = new Vec3d[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = new Vec3d(i * 16.0, 64.0, 0.0);
+            players.add(createPlayer(i));
+        }
+    }
+    
+    /**
+     * Initialize the game registries the detectors read, such as the status effects.
+     */
+    public static synchronized void bootstrap() {
+        if (!bootstrapped) {
+            SharedConstants.createGameVersion();
+            Bootstrap.initialize();
+            bootstrapped = true;
+        }
+    }
+    
+    private ServerPlayerEntity createPlayer(int index) {
+        ServerPlayerEntity player = mock(ServerPlayerEntity.class, withSettings().stubOnly());
+        when(player.getUuid()).thenReturn(new UUID(0L, index));
+        when(player.getName()).thenReturn(Text.literal("Player" + index));
+        when(player.getPos()).thenAnswer(invocation -> positions[index]);
+        when(player.getVelocity()).thenReturn(Vec3d.ZERO);
+        when(player.isOnGround()).thenReturn(index % 2 == 0);
+        when(player.getAbilities()).thenReturn(new PlayerAbilities());
+        when(player.getServer()).thenReturn(server);
+        return player;
+    }
+    
+    /**
+     * Move a player by the given offset.
+     * @param index The index of the player
+     * @param dx The offset along X
+     * @param dy The offset along Y
+     * @param dz The offset along Z
+     */
+    public void move(int index, double dx, double dy, double dz) {
+        positions[index] = positions[index].add(dx, dy, dz);
+    }
+    
+    public MinecraftServer getServer() {
+        return server;
+    }
+    
+    public List<ServerPlayerEntity> getPlayers() {
+        return players;
+    }
+    
+    public ServerPlayerEntity get(int index) {
+        return players.get(index);
+    }
+    
+    public int size() {
+        return players.size();
+    }
+}
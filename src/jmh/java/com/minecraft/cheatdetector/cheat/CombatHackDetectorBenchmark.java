@@ -0,0 +1,77 @@
+package com.minecraft.cheatdetector.cheat;
+
+import com.minecraft.cheatdetector.analysis.PopulationBaselines;
+import com.minecraft.cheatdetector.benchmark.StubPlayers;
+import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.lagcomp.LagCompensator;
+import com.minecraft.cheatdetector.report.ViolationManager;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the attack rate check for one attack by every online player.
+ * Intervals stay under the 200ms cutoff so every call reaches the statistics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CombatHackDetectorBenchmark {
+    @Param({"1", "50", "500"})
+    public int playerCount;
+    
+    private StubPlayers players;
+    private PlayerDataManager.PlayerData[] data;
+    private ViolationManager violationManager;
+    private CombatHackDetector detector;
+    private long round;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        ModConfig config = new ModConfig();
+        DetectorClock clock = new DetectorClock();
+        PlayerDataManager playerDataManager = new PlayerDataManager(clock);
+        players = new StubPlayers(playerCount);
+        violationManager = new ViolationManager(config);
+        detector = new CombatHackDetector(violationManager, config, clock, new LagCompensator(config),
+                new PopulationBaselines(config));
+        
+        // Give every player a last attack to measure the intervals against
+        data = new PlayerDataManager.PlayerData[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            data[i] = playerDataManager.getPlayerData(players.get(i));
+            data[i].recordAttack(new UUID(1L, i), clock.getMillis());
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        violationManager.close();
+    }
+    
+    @Benchmark
+    public void checkAttackRate() {
+        long jitter = round++ % 40;
+        for (int i = 0; i < data.length; i++) {
+            detector.checkAttackRate(data[i], data[i].getLastAttackTime() - 80 - jitter);
+        }
+    }
+}
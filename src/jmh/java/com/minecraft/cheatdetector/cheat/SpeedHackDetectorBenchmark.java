@@ -0,0 +1,67 @@
+package com.minecraft.cheatdetector.cheat;
+
+import com.minecraft.cheatdetector.analysis.PopulationBaselines;
+import com.minecraft.cheatdetector.benchmark.StubPlayers;
+import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.report.ViolationManager;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one speed check pass over every online player.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpeedHackDetectorBenchmark {
+    @Param({"1", "50", "500"})
+    public int playerCount;
+    
+    private StubPlayers players;
+    private ViolationManager violationManager;
+    private DetectorClock clock;
+    private SpeedHackDetector detector;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        ModConfig config = new ModConfig();
+        players = new StubPlayers(playerCount);
+        violationManager = new ViolationManager(config);
+        clock = new DetectorClock();
+        detector = new SpeedHackDetector(violationManager, config, new PlayerDataManager(clock), clock,
+                new PopulationBaselines(config));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        violationManager.close();
+    }
+    
+    @Benchmark
+    public void checkAllPlayers() {
+        // Every invocation is one server tick later
+        clock.set(clock.getTick() + 1, clock.getMillis() + 50);
+        for (int i = 0; i < players.size(); i++) {
+            players.move(i, 0.2, 0.0, 0.1);
+            detector.check(players.get(i));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.minecraft.cheatdetector.data;
+
+import com.minecraft.cheatdetector.benchmark.StubPlayers;
+import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-event PlayerData updates, one event per online player.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerDataBenchmark {
+    @Param({"1", "50", "500"})
+    public int playerCount;
+    
+    private DetectorClock clock;
+    private PlayerDataManager.PlayerData[] data;
+    private int[] blockIds;
+    private byte[] blockCategories;
+    private UUID[] targets;
+    private int round;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        StubPlayers players = new StubPlayers(playerCount);
+        BlockClassifier classifier = new BlockClassifier();
+        classifier.rebuild(new ModConfig().getValuableOres());
+        
+        clock = new DetectorClock();
+        PlayerDataManager playerDataManager = new PlayerDataManager(clock);
+        data = new PlayerDataManager.PlayerData[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            data[i] = playerDataManager.getPlayerData(players.get(i));
+        }
+        
+        // Cycle through a spread of block ids and attack targets
+        blockIds = new int[64];
+        blockCategories = new byte[blockIds.length];
+        for (int i = 0; i < blockIds.length; i++) {
+            blockIds[i] = (int) ((long) i * classifier.size() / blockIds.length);
+            blockCategories[i] = classifier.classify(blockIds[i]);
+        }
+        
+        targets = new UUID[32];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = new UUID(1L, i);
+        }
+    }
+    
+    @Benchmark
+    public void addMinedBlock() {
+        int block = round++ & (blockIds.length - 1);
+        for (PlayerDataManager.PlayerData playerData : data) {
+            playerData.addMinedBlock(blockIds[block], blockCategories[block]);
+        }
+    }
+    
+    @Benchmark
+    public void recordAttack() {
+        UUID target = targets[round++ & (targets.length - 1)];
+        for (PlayerDataManager.PlayerData playerData : data) {
+            playerData.recordAttack(target, clock.getMillis());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.minecraft.cheatdetector.report;
+
+import com.minecraft.cheatdetector.benchmark.StubPlayers;
+import com.minecraft.cheatdetector.config.ModConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of logging one violation. The player count sets how many online
+ * players the admin notification walks; lines the journal cannot keep up
+ * with are dropped rather than blocking, as they would be on a live server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViolationManagerBenchmark {
+    @Param({"1", "50", "500"})
+    public int playerCount;
+    
+    private StubPlayers players;
+    private ViolationManager violationManager;
+    private int round;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        players = new StubPlayers(playerCount);
+        violationManager = new ViolationManager(new ModConfig());
+        violationManager.setServer(players.getServer());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        violationManager.close();
+    }
+    
+    @Benchmark
+    public void logViolation() {
+        int index = round++ % players.size();
+        violationManager.logViolation(players.get(index), ViolationType.SPEED_HACK, "Moving at %.2f blocks/s (%.2f%% over limit)", 9.8, 27.0);
+    }
+}
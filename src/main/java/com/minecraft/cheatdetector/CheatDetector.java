@@ -1,20 +1,34 @@
 package com.minecraft.cheatdetector;
 
+import com.minecraft.cheatdetector.analysis.PopulationBaselines;
 import com.minecraft.cheatdetector.cheat.*;
 import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.BlockClassifier;
+import com.minecraft.cheatdetector.data.OreExposureCache;
 import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.data.PlayerProfileStore;
 import com.minecraft.cheatdetector.event.EventManager;
+import com.minecraft.cheatdetector.lagcomp.LagCompensator;
+import com.minecraft.cheatdetector.metrics.PerfMonitor;
+import com.minecraft.cheatdetector.movement.MovementCheck;
 import com.minecraft.cheatdetector.report.ViolationManager;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
+import com.minecraft.cheatdetector.scheduler.DetectorScheduler;
 import com.minecraft.cheatdetector.test.TestSpeedHackDetector;
+import com.minecraft.cheatdetector.trace.TraceRecorder;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.server.network.ServerPlayerEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * Main class for the CheatDetector anti-cheat mod.
  * This is a server-side only mod designed to detect and report cheaters on Fabric 1.21.5 servers.
@@ -23,6 +37,9 @@ public class CheatDetector implements ModInitializer {
     // Logger for our mod
     public static final Logger LOGGER = LoggerFactory.getLogger("cheatdetector");
     
+    // File the performance metrics are exported to
+    public static final Path PERF_EXPORT_FILE = Paths.get("perf", "metrics.json");
+    
     // Singleton instance
     private static CheatDetector instance;
     
@@ -33,15 +50,29 @@ public class CheatDetector implements ModInitializer {
     private PlayerDataManager playerDataManager;
     private ViolationManager violationManager;
     private EventManager eventManager;
+    private PopulationBaselines populationBaselines;
+    private BlockClassifier blockClassifier;
+    private OreExposureCache oreExposureCache;
+    private TraceRecorder traceRecorder;
+    private LagCompensator lagCompensator;
+    private PerfMonitor perfMonitor;
+    private DetectorClock clock;
     private ModConfig config;
     
     // Cheat detectors
     private SpeedHackDetector speedHackDetector;
     private XrayDetector xrayDetector;
     private FlightDetector flightDetector;
-    private KillAuraDetector killAuraDetector;
-    private ReachHackDetector reachHackDetector;
-    private NoFallDetector noFallDetector;
+    private CombatHackDetector combatHackDetector;
+    
+    // Feeds client movement packets to the movement detectors
+    private MovementCheck movementCheck;
+    
+    // Dispatches the per-player detectors with their shared player state
+    private DetectorRegistry detectorRegistry;
+    
+    // Spreads detector work across ticks
+    private DetectorScheduler detectorScheduler;
     
     /**
      * Initializes the CheatDetector mod.
@@ -57,17 +88,27 @@ public class CheatDetector implements ModInitializer {
         this.config = new ModConfig();
         
         // Initialize managers
-        this.playerDataManager = new PlayerDataManager();
+        this.perfMonitor = new PerfMonitor(this.config);
+        this.clock = new DetectorClock();
+        this.playerDataManager = new PlayerDataManager(this.clock, openProfileStore());
         this.violationManager = new ViolationManager(this.config);
-        this.eventManager = new EventManager();
+        this.violationManager.setPerfMonitor(this.perfMonitor);
+        this.eventManager = new EventManager(this.perfMonitor);
+        this.populationBaselines = new PopulationBaselines(this.config);
+        this.blockClassifier = new BlockClassifier();
+        this.oreExposureCache = new OreExposureCache();
+        this.traceRecorder = new TraceRecorder(this.clock);
+        this.lagCompensator = new LagCompensator(this.config);
         
         // Initialize cheat detectors
-        this.speedHackDetector = new SpeedHackDetector(this.violationManager, this.config);
-        this.xrayDetector = new XrayDetector(this.violationManager, this.config);
-        this.flightDetector = new FlightDetector(this.violationManager, this.config);
-        this.killAuraDetector = new KillAuraDetector(this.violationManager, this.config);
-        this.reachHackDetector = new ReachHackDetector(this.violationManager, this.config);
-        this.noFallDetector = new NoFallDetector(this.violationManager, this.config);
+        this.speedHackDetector = new SpeedHackDetector(this.violationManager, this.config, this.playerDataManager, this.clock, this.populationBaselines);
+        this.xrayDetector = new XrayDetector(this.violationManager, this.config, this.clock, this.oreExposureCache, this.populationBaselines);
+        this.flightDetector = new FlightDetector(this.violationManager, this.config, this.playerDataManager, this.clock);
+        this.combatHackDetector = new CombatHackDetector(this.violationManager, this.config, this.clock, this.lagCompensator, this.populationBaselines);
+        this.movementCheck = new MovementCheck(this.speedHackDetector, this.flightDetector, this.traceRecorder);
+        
+        // Schedule per-player checks within the tick budget
+        registerScheduledChecks();
         
         // Register server lifecycle events
         registerServerEvents();
@@ -81,6 +122,19 @@ public class CheatDetector implements ModInitializer {
         LOGGER.info("CheatDetector initialized successfully!");
     }
     
+    /**
+     * Open the store that keeps player profiles across relogs and restarts.
+     * @return The profile store, or null if it cannot be opened
+     */
+    private PlayerProfileStore openProfileStore() {
+        try {
+            return new PlayerProfileStore(Paths.get("profiles", "profiles.dat"));
+        } catch (IOException e) {
+            LOGGER.error("Failed to open player profile store, profiles will not be saved: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Register server events needed by the mod.
      */
@@ -88,15 +142,39 @@ public class CheatDetector implements ModInitializer {
         // Register server start event
         ServerLifecycleEvents.SERVER_STARTED.register(server -> {
             this.server = server;
+            this.violationManager.setServer(server);
+            
+            // Registries are frozen and tags bound by now, so block ids and stone tags are final
+            this.blockClassifier.rebuild(this.config.getValuableOres());
             LOGGER.info("CheatDetector connected to server");
         });
         
+        // A data pack reload can change which blocks the base stone tags hold
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+            if (success) {
+                this.blockClassifier.rebuild(this.config.getValuableOres());
+            }
+        });
+        
         // Register server stop event
         ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
             LOGGER.info("CheatDetector disconnecting from server");
-            this.playerDataManager.saveAllData();
+            this.traceRecorder.stop();
+            this.violationManager.close();
+            this.perfMonitor.shutdown();
+            this.lagCompensator.clear();
+            this.oreExposureCache.clear();
         });
         
+        // The remaining players are disconnected, and their profiles saved, only after SERVER_STOPPING
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> this.playerDataManager.saveAllData());
+        
+        // Drop the cached block exposure of chunks that are no longer loaded
+        ServerChunkEvents.CHUNK_UNLOAD.register(oreExposureCache::onChunkUnloaded);
+        
+        // Capture the tick time once, before any event or check of the tick reads it
+        ServerTickEvents.START_SERVER_TICK.register(server -> clock.update(server.getTicks()));
+        
         // Register server tick event for regular checks
         ServerTickEvents.END_SERVER_TICK.register(server -> {
             // Skip if there are no players
@@ -104,24 +182,46 @@ public class CheatDetector implements ModInitializer {
                 return;
             }
             
-            // Perform checks on each player
-            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-                // Skip players with bypass permission
-                if (hasAntiCheatBypassPermission(player)) {
-                    continue;
-                }
-                
-                // Run cheat detections
-                speedHackDetector.check(player);
-                flightDetector.check(player);
-                xrayDetector.check(player);
-                killAuraDetector.check(player);
-                noFallDetector.check(player);
-                // Note: Reach hack detection is handled by attack event
+            // Run the checks that are due this tick, within the configured budget
+            detectorScheduler.tick(server);
+            
+            // Make this tick's changes visible to readers on other threads
+            playerDataManager.publishSnapshots();
+            
+            // Remember where everyone was, for attacks that arrive late
+            lagCompensator.recordTick(server, server.getTicks());
+            
+            // Follow the population's statistics with the adaptive thresholds
+            populationBaselines.tick(server.getTicks());
+            
+            // Periodically save profiles and the report catalog so a crash loses little history
+            int saveInterval = config.getProfileSaveIntervalTicks();
+            if (saveInterval > 0 && server.getTicks() % saveInterval == 0) {
+                playerDataManager.saveProfiles();
+                violationManager.getReportCatalog().save();
+            }
+            
+            // Periodically export performance metrics for external tooling
+            int exportInterval = config.getPerfExportIntervalTicks();
+            if (exportInterval > 0 && server.getTicks() % exportInterval == 0) {
+                perfMonitor.export(PERF_EXPORT_FILE);
             }
         });
     }
     
+    /**
+     * Register the per-player cheat detections with the scheduler.
+     * Combat checks run from the attack event instead, as each attack arrives.
+     */
+    private void registerScheduledChecks() {
+        this.detectorRegistry = new DetectorRegistry(this.playerDataManager, this.clock, this.config);
+        detectorRegistry.register(movementCheck);
+        detectorRegistry.register(xrayDetector);
+        
+        this.detectorScheduler = new DetectorScheduler(this.config, this.perfMonitor, detectorRegistry::isEligible);
+        detectorRegistry.schedule(detectorScheduler);
+    }
+    
     /**
      * Register commands for the mod.
      */
@@ -132,16 +232,6 @@ public class CheatDetector implements ModInitializer {
         });
     }
     
-    /**
-     * Check if a player has permission to bypass anti-cheat checks.
-     * @param player The player to check
-     * @return true if the player can bypass checks, false otherwise
-     */
-    private boolean hasAntiCheatBypassPermission(ServerPlayerEntity player) {
-        // For vanilla servers, typically just check op level
-        return player.hasPermissionLevel(config.getBypassPermissionLevel());
-    }
-    
     /**
      * Get the current server instance.
      * @return The current MinecraftServer instance
@@ -174,6 +264,70 @@ public class CheatDetector implements ModInitializer {
         return eventManager;
     }
     
+    /**
+     * Get the server-wide statistics the adaptive thresholds come from.
+     * @return The population baselines
+     */
+    public PopulationBaselines getPopulationBaselines() {
+        return populationBaselines;
+    }
+    
+    /**
+     * Get the block classifier used for X-ray tracking.
+     * @return The block classifier
+     */
+    public BlockClassifier getBlockClassifier() {
+        return blockClassifier;
+    }
+    
+    /**
+     * Get the cache of which blocks have an open face.
+     * @return The ore exposure cache
+     */
+    public OreExposureCache getOreExposureCache() {
+        return oreExposureCache;
+    }
+    
+    /**
+     * Get the movement trace recorder.
+     * @return The trace recorder
+     */
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+    
+    /**
+     * Get the lag compensator holding recent entity positions.
+     * @return The lag compensator
+     */
+    public LagCompensator getLagCompensator() {
+        return lagCompensator;
+    }
+    
+    /**
+     * Get the combat hack detector.
+     * @return The combat hack detector
+     */
+    public CombatHackDetector getCombatHackDetector() {
+        return combatHackDetector;
+    }
+    
+    /**
+     * Get the performance monitor.
+     * @return The performance monitor
+     */
+    public PerfMonitor getPerfMonitor() {
+        return perfMonitor;
+    }
+    
+    /**
+     * Get the clock the detectors read the time from.
+     * @return The detector clock
+     */
+    public DetectorClock getClock() {
+        return clock;
+    }
+    
     /**
      * Get the mod configuration.
      * @return The mod configuration
@@ -182,6 +336,14 @@ public class CheatDetector implements ModInitializer {
         return config;
     }
     
+    /**
+     * Get the X-ray detector.
+     * @return The X-ray detector
+     */
+    public XrayDetector getXrayDetector() {
+        return xrayDetector;
+    }
+    
     /**
      * Get the speed hack detector.
      * @return The speed hack detector
@@ -190,6 +352,30 @@ public class CheatDetector implements ModInitializer {
         return speedHackDetector;
     }
     
+    /**
+     * Get the flight detector.
+     * @return The flight detector
+     */
+    public FlightDetector getFlightDetector() {
+        return flightDetector;
+    }
+    
+    /**
+     * Get the registry dispatching the per-player detectors.
+     * @return The detector registry
+     */
+    public DetectorRegistry getDetectorRegistry() {
+        return detectorRegistry;
+    }
+    
+    /**
+     * Get the detector scheduler.
+     * @return The detector scheduler
+     */
+    public DetectorScheduler getDetectorScheduler() {
+        return detectorScheduler;
+    }
+    
     /**
      * Get the singleton instance of the CheatDetector mod.
      * @return The CheatDetector instance
@@ -1,7 +1,17 @@
 package com.minecraft.cheatdetector;
 
+import com.minecraft.cheatdetector.data.CheckType;
+import com.minecraft.cheatdetector.data.PlayerDataSnapshot;
+import com.minecraft.cheatdetector.metrics.PerfMetric;
+import com.minecraft.cheatdetector.metrics.PerfMonitor;
+import com.minecraft.cheatdetector.report.ReportCatalog;
+import com.minecraft.cheatdetector.report.ViolationArchive;
 import com.minecraft.cheatdetector.report.ViolationManager;
+import com.minecraft.cheatdetector.report.ViolationType;
+import com.minecraft.cheatdetector.trace.TraceRecorder;
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import net.minecraft.command.CommandRegistryAccess;
 import net.minecraft.server.command.CommandManager;
@@ -10,9 +20,11 @@ import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -22,11 +34,17 @@ import java.util.UUID;
  * Handles the registration and execution of commands for the CheatDetector mod.
  */
 public class CommandHandler {
-    
     // Command prefix
     private static final String COMMAND_PREFIX = "cheatdetector";
     private static final String COMMAND_ALIAS = "cd";
     
+    // Number of reports listed per page
+    private static final int REPORTS_PAGE_SIZE = 10;
+    
+    // Format of violation dates read from the archive and the report catalog
+    private static final DateTimeFormatter ARCHIVE_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    
     /**
      * Registers all CheatDetector commands.
      * @param dispatcher The command dispatcher
@@ -39,15 +57,32 @@ public class CommandHandler {
                 .executes(CommandHandler::showHelp)
                 .then(CommandManager.literal("report")
                     .executes(CommandHandler::showReportHelp)
-                    .then(CommandManager.argument("player", net.minecraft.command.argument.EntityArgumentType.player())
+                    .then(CommandManager.argument("player", StringArgumentType.word())
                         .executes(CommandHandler::showPlayerReport)))
                 .then(CommandManager.literal("reports")
-                    .executes(CommandHandler::listReports))
+                    .executes(context -> listReports(context, 1, null))
+                    .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                        .executes(context -> listReports(context, IntegerArgumentType.getInteger(context, "page"), null))
+                        .then(CommandManager.argument("filter", StringArgumentType.word())
+                            .executes(context -> listReports(context, IntegerArgumentType.getInteger(context, "page"),
+                                    StringArgumentType.getString(context, "filter"))))))
                 .then(CommandManager.literal("check")
                     .then(CommandManager.argument("player", net.minecraft.command.argument.EntityArgumentType.player())
                         .executes(CommandHandler::checkPlayer)))
                 .then(CommandManager.literal("reload")
                     .executes(CommandHandler::reloadConfig))
+                .then(CommandManager.literal("trace")
+                    .then(CommandManager.literal("start")
+                        .executes(context -> startTrace(context, null))
+                        .then(CommandManager.argument("player", net.minecraft.command.argument.EntityArgumentType.player())
+                            .executes(context -> startTrace(context,
+                                    net.minecraft.command.argument.EntityArgumentType.getPlayer(context, "player")))))
+                    .then(CommandManager.literal("stop")
+                        .executes(CommandHandler::stopTrace)))
+                .then(CommandManager.literal("perf")
+                    .executes(CommandHandler::showPerf)
+                    .then(CommandManager.literal("export")
+                        .executes(CommandHandler::exportPerf)))
         );
         
         // Alias (shorter command)
@@ -57,15 +92,32 @@ public class CommandHandler {
                 .executes(CommandHandler::showHelp)
                 .then(CommandManager.literal("report")
                     .executes(CommandHandler::showReportHelp)
-                    .then(CommandManager.argument("player", net.minecraft.command.argument.EntityArgumentType.player())
+                    .then(CommandManager.argument("player", StringArgumentType.word())
                         .executes(CommandHandler::showPlayerReport)))
                 .then(CommandManager.literal("reports")
-                    .executes(CommandHandler::listReports))
+                    .executes(context -> listReports(context, 1, null))
+                    .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                        .executes(context -> listReports(context, IntegerArgumentType.getInteger(context, "page"), null))
+                        .then(CommandManager.argument("filter", StringArgumentType.word())
+                            .executes(context -> listReports(context, IntegerArgumentType.getInteger(context, "page"),
+                                    StringArgumentType.getString(context, "filter"))))))
                 .then(CommandManager.literal("check")
                     .then(CommandManager.argument("player", net.minecraft.command.argument.EntityArgumentType.player())
                         .executes(CommandHandler::checkPlayer)))
                 .then(CommandManager.literal("reload")
                     .executes(CommandHandler::reloadConfig))
+                .then(CommandManager.literal("trace")
+                    .then(CommandManager.literal("start")
+                        .executes(context -> startTrace(context, null))
+                        .then(CommandManager.argument("player", net.minecraft.command.argument.EntityArgumentType.player())
+                            .executes(context -> startTrace(context,
+                                    net.minecraft.command.argument.EntityArgumentType.getPlayer(context, "player")))))
+                    .then(CommandManager.literal("stop")
+                        .executes(CommandHandler::stopTrace)))
+                .then(CommandManager.literal("perf")
+                    .executes(CommandHandler::showPerf)
+                    .then(CommandManager.literal("export")
+                        .executes(CommandHandler::exportPerf)))
         );
     }
     
@@ -76,10 +128,14 @@ public class CommandHandler {
         ServerCommandSource source = context.getSource();
         
         source.sendFeedback(() -> Text.literal("=== CheatDetector Commands ===").formatted(Formatting.GOLD), false);
-        source.sendFeedback(() -> Text.literal("/cd report <player> - Show a player's cheat report").formatted(Formatting.YELLOW), false);
-        source.sendFeedback(() -> Text.literal("/cd reports - List all available cheat reports").formatted(Formatting.YELLOW), false);
+        source.sendFeedback(() -> Text.literal("/cd report <player|uuid> - Show a player's cheat report, also when offline").formatted(Formatting.YELLOW), false);
+        source.sendFeedback(() -> Text.literal("/cd reports [page] [name] - List cheat reports, most recent first").formatted(Formatting.YELLOW), false);
         source.sendFeedback(() -> Text.literal("/cd check <player> - Run a manual check on a player").formatted(Formatting.YELLOW), false);
         source.sendFeedback(() -> Text.literal("/cd reload - Reload the configuration").formatted(Formatting.YELLOW), false);
+        source.sendFeedback(() -> Text.literal("/cd trace start [player] - Record a movement trace for offline replay").formatted(Formatting.YELLOW), false);
+        source.sendFeedback(() -> Text.literal("/cd trace stop - Stop recording the movement trace").formatted(Formatting.YELLOW), false);
+        source.sendFeedback(() -> Text.literal("/cd perf - Show detector timings over the last 1 and 10 minutes").formatted(Formatting.YELLOW), false);
+        source.sendFeedback(() -> Text.literal("/cd perf export - Write the detector timings to " + CheatDetector.PERF_EXPORT_FILE).formatted(Formatting.YELLOW), false);
         
         return 1;
     }
@@ -91,74 +147,100 @@ public class CommandHandler {
         ServerCommandSource source = context.getSource();
         
         source.sendFeedback(() -> Text.literal("=== CheatDetector Report Command ===").formatted(Formatting.GOLD), false);
-        source.sendFeedback(() -> Text.literal("Usage: /cd report <player>").formatted(Formatting.YELLOW), false);
+        source.sendFeedback(() -> Text.literal("Usage: /cd report <player|uuid>").formatted(Formatting.YELLOW), false);
         source.sendFeedback(() -> Text.literal("Shows detailed information about a player's cheat violations.").formatted(Formatting.WHITE), false);
         
         return 1;
     }
     
     /**
-     * Shows a report for a specific player.
+     * Shows a report for a specific player, online or offline.
+     * The player is given by name or UUID; offline players are looked up in the report catalog.
      */
     private static int showPlayerReport(CommandContext<ServerCommandSource> context) {
         ServerCommandSource source = context.getSource();
-        ServerPlayerEntity player;
+        String argument = StringArgumentType.getString(context, "player");
+        ViolationManager violationManager = CheatDetector.getInstance().getViolationManager();
+        ReportCatalog catalog = violationManager.getReportCatalog();
         
-        try {
-            player = net.minecraft.command.argument.EntityArgumentType.getPlayer(context, "player");
-        } catch (Exception e) {
-            source.sendError(Text.literal("Error: Could not find the specified player"));
-            return 0;
+        UUID playerUuid;
+        String playerName;
+        ServerPlayerEntity online = source.getServer().getPlayerManager().getPlayer(argument);
+        ReportCatalog.Entry entry = online == null ? catalog.findByName(argument) : null;
+        if (online != null) {
+            playerUuid = online.getUuid();
+            playerName = online.getName().getString();
+        } else if (entry != null) {
+            playerUuid = entry.playerUuid();
+            playerName = entry.playerName();
+        } else {
+            try {
+                playerUuid = UUID.fromString(argument);
+            } catch (IllegalArgumentException e) {
+                source.sendError(Text.literal("Error: No player or report found for " + argument));
+                return 0;
+            }
+            entry = catalog.get(playerUuid);
+            playerName = entry != null ? entry.playerName() : playerUuid.toString();
         }
         
-        ViolationManager violationManager = CheatDetector.getInstance().getViolationManager();
-        List<ViolationManager.Violation> violations = violationManager.getPlayerViolations(player.getUuid());
+        List<ViolationManager.Violation> violations = violationManager.getPlayerViolations(playerUuid);
+        ViolationArchive.History history = violationManager.getViolationHistory(playerUuid);
+        boolean archiveReady = violationManager.isArchiveReady();
         
-        if (violations.isEmpty()) {
-            source.sendFeedback(() -> Text.literal("No violations recorded for " + player.getName().getString()).formatted(Formatting.GREEN), false);
+        if (violations.isEmpty() && history == null && archiveReady) {
+            source.sendFeedback(() -> Text.literal("No violations recorded for " + playerName).formatted(Formatting.GREEN), false);
             return 1;
         }
         
         // Show report header
-        source.sendFeedback(() -> Text.literal("=== Cheat Report for " + player.getName().getString() + " ===").formatted(Formatting.GOLD), false);
-        
-        // Count violations by type
-        int speedViolations = 0;
-        int flightViolations = 0;
-        int xrayViolations = 0;
-        int killAuraViolations = 0;
-        int reachViolations = 0;
-        int noFallViolations = 0;
+        source.sendFeedback(() -> Text.literal("=== Cheat Report for " + playerName + " ===").formatted(Formatting.GOLD), false);
         
-        for (ViolationManager.Violation violation : violations) {
-            switch (violation.type()) {
-                case "SpeedHack" -> speedViolations++;
-                case "FlightHack" -> flightViolations++;
-                case "XRay" -> xrayViolations++;
-                case "KillAura" -> killAuraViolations++;
-                case "ReachHack" -> reachViolations++;
-                case "NoFall" -> noFallViolations++;
+        // Show lifetime totals from the violation archive, which are partial until it has loaded
+        if (!archiveReady) {
+            source.sendFeedback(() -> Text.literal("Lifetime: archive still loading, try again shortly").formatted(Formatting.GRAY), false);
+        } else if (history != null) {
+            source.sendFeedback(() -> Text.literal(String.format("Lifetime: %d violations from %s to %s",
+                    history.count(),
+                    ARCHIVE_DATE_FORMAT.format(Instant.ofEpochMilli(history.firstMillis())),
+                    ARCHIVE_DATE_FORMAT.format(Instant.ofEpochMilli(history.lastMillis()))))
+                    .formatted(Formatting.GOLD), false);
+            
+            int topCount = Math.min(3, history.types().size());
+            for (int i = 0; i < topCount; i++) {
+                ViolationArchive.TypeCount typeCount = history.types().get(i);
+                source.sendFeedback(() -> Text.literal(" - " + typeCount.type() + ": " + typeCount.count() + " violations").formatted(Formatting.GOLD), false);
             }
         }
         
-        // Show violation counts
-        if (speedViolations > 0) {
-            source.sendFeedback(() -> Text.literal("Speed Hack: " + speedViolations + " violations").formatted(Formatting.RED), false);
-        }
-        if (flightViolations > 0) {
-            source.sendFeedback(() -> Text.literal("Flight Hack: " + flightViolations + " violations").formatted(Formatting.RED), false);
-        }
-        if (xrayViolations > 0) {
-            source.sendFeedback(() -> Text.literal("X-Ray: " + xrayViolations + " violations").formatted(Formatting.RED), false);
+        if (violations.isEmpty()) {
+            return 1;
         }
-        if (killAuraViolations > 0) {
-            source.sendFeedback(() -> Text.literal("KillAura: " + killAuraViolations + " violations").formatted(Formatting.RED), false);
+        
+        // Show current violation levels from the last published snapshot
+        PlayerDataSnapshot snapshot = CheatDetector.getInstance().getPlayerDataManager().getSnapshot(playerUuid);
+        if (snapshot != null) {
+            long now = CheatDetector.getInstance().getClock().getMillis();
+            source.sendFeedback(() -> Text.literal(String.format(
+                    "Current levels - Speed: %d, Flight: %d, X-Ray: %d, KillAura: %d, Reach: %d",
+                    snapshot.violationLevel(CheckType.SPEED, now), snapshot.violationLevel(CheckType.FLIGHT, now),
+                    snapshot.violationLevel(CheckType.XRAY, now), snapshot.violationLevel(CheckType.KILL_AURA, now),
+                    snapshot.violationLevel(CheckType.REACH, now)))
+                    .formatted(Formatting.GRAY), false);
         }
-        if (reachViolations > 0) {
-            source.sendFeedback(() -> Text.literal("Reach Hack: " + reachViolations + " violations").formatted(Formatting.RED), false);
+        
+        // Count violations by type
+        int[] counts = new int[ViolationType.values().length];
+        for (ViolationManager.Violation violation : violations) {
+            counts[violation.type().ordinal()]++;
         }
-        if (noFallViolations > 0) {
-            source.sendFeedback(() -> Text.literal("No Fall: " + noFallViolations + " violations").formatted(Formatting.RED), false);
+        
+        // Show violation counts
+        for (ViolationType type : ViolationType.values()) {
+            int count = counts[type.ordinal()];
+            if (count > 0) {
+                source.sendFeedback(() -> Text.literal(type.getDisplayName() + ": " + count + " violations").formatted(Formatting.RED), false);
+            }
         }
         
         // Show recent violations (limit to 5)
@@ -167,61 +249,43 @@ public class CommandHandler {
         int recentCount = Math.min(5, violations.size());
         for (int i = 0; i < recentCount; i++) {
             ViolationManager.Violation violation = violations.get(violations.size() - 1 - i);
-            source.sendFeedback(() -> Text.literal(" - " + violation.type() + ": " + violation.details() + " (" + violation.timestamp() + ")").formatted(Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal(" - " + violation.type().getId() + ": " + violation.details() + " (" + violation.timestamp() + ")").formatted(Formatting.WHITE), false);
         }
         
         // Show report file location
-        source.sendFeedback(() -> Text.literal("Full report saved to: reports/" + player.getUuid() + ".txt").formatted(Formatting.AQUA), false);
+        source.sendFeedback(() -> Text.literal("Full report saved to: reports/" + playerUuid + ".txt").formatted(Formatting.AQUA), false);
         
         return 1;
     }
     
     /**
-     * Lists all available reports.
+     * Lists one page of the available reports, most recently violated first.
+     * @param page The page to show, starting at 1
+     * @param nameFilter Part of the player names to show, or null for all
      */
-    private static int listReports(CommandContext<ServerCommandSource> context) {
+    private static int listReports(CommandContext<ServerCommandSource> context, int page, String nameFilter) {
         ServerCommandSource source = context.getSource();
-        File reportsDir = new File("reports");
+        ReportCatalog catalog = CheatDetector.getInstance().getViolationManager().getReportCatalog();
+        ReportCatalog.Page reports = catalog.list(nameFilter, page, REPORTS_PAGE_SIZE);
         
-        if (!reportsDir.exists() || !reportsDir.isDirectory()) {
-            source.sendFeedback(() -> Text.literal("No reports available yet.").formatted(Formatting.YELLOW), false);
+        if (reports.matching() == 0) {
+            String message = nameFilter == null ? "No reports available yet." : "No reports match \"" + nameFilter + "\".";
+            source.sendFeedback(() -> Text.literal(message).formatted(Formatting.YELLOW), false);
             return 1;
         }
         
-        File[] reportFiles = reportsDir.listFiles((dir, name) -> name.endsWith(".txt"));
+        source.sendFeedback(() -> Text.literal(String.format("=== Available Cheat Reports (page %d/%d, %d reports) ===",
+                reports.page(), reports.pages(), reports.matching())).formatted(Formatting.GOLD), false);
         
-        if (reportFiles == null || reportFiles.length == 0) {
-            source.sendFeedback(() -> Text.literal("No reports available yet.").formatted(Formatting.YELLOW), false);
-            return 1;
+        for (ReportCatalog.Entry entry : reports.entries()) {
+            String lastViolation = ARCHIVE_DATE_FORMAT.format(Instant.ofEpochMilli(entry.lastViolationMillis()));
+            source.sendFeedback(() -> Text.literal(String.format("- %s: %d violations, last %s (Use: /cd report %s)",
+                    entry.playerName(), entry.violations(), lastViolation, entry.playerName())).formatted(Formatting.YELLOW), false);
         }
         
-        source.sendFeedback(() -> Text.literal("=== Available Cheat Reports ===").formatted(Formatting.GOLD), false);
-        
-        for (File file : reportFiles) {
-            String uuidStr = file.getName().replace(".txt", "");
-            try {
-                UUID uuid = UUID.fromString(uuidStr);
-                String playerName = "Unknown";
-                
-                // Try to get player name from server
-                ServerPlayerEntity player = context.getSource().getServer().getPlayerManager().getPlayer(uuid);
-                if (player != null) {
-                    playerName = player.getName().getString();
-                } else {
-                    // Try to read first line of report which should contain player name
-                    try {
-                        List<String> lines = Files.readAllLines(Paths.get(file.getPath()));
-                        if (!lines.isEmpty() && lines.get(0).startsWith("Player:")) {
-                            playerName = lines.get(0).substring("Player:".length()).trim();
-                        }
-                    } catch (Exception ignored) {
-                    }
-                }
-                
-                source.sendFeedback(() -> Text.literal("- " + playerName + " (Use: /cd report " + playerName + ")").formatted(Formatting.YELLOW), false);
-            } catch (Exception e) {
-                // Invalid UUID filename, ignore
-            }
+        if (reports.page() < reports.pages()) {
+            String next = "/cd reports " + (reports.page() + 1) + (nameFilter == null ? "" : " " + nameFilter);
+            source.sendFeedback(() -> Text.literal("Next page: " + next).formatted(Formatting.AQUA), false);
         }
         
         return 1;
@@ -243,19 +307,100 @@ public class CommandHandler {
         
         source.sendFeedback(() -> Text.literal("Running manual check on " + player.getName().getString() + "...").formatted(Formatting.YELLOW), false);
         
-        // Run all checks on the player
-        CheatDetector instance = CheatDetector.getInstance();
-        instance.getSpeedHackDetector().check(player);
-        instance.getFlightDetector().check(player);
-        instance.getXrayDetector().check(player);
-        instance.getKillAuraDetector().check(player);
-        instance.getNoFallDetector().check(player);
+        // Run all checks on the player, whether or not anything changed since their last run
+        CheatDetector.getInstance().getDetectorRegistry().checkNow(player);
         
         source.sendFeedback(() -> Text.literal("Check completed. Use '/cd report " + player.getName().getString() + "' to see results.").formatted(Formatting.GREEN), false);
         
         return 1;
     }
     
+    /**
+     * Starts recording a movement trace, of one player if given or else of everyone.
+     */
+    private static int startTrace(CommandContext<ServerCommandSource> context, ServerPlayerEntity player) {
+        ServerCommandSource source = context.getSource();
+        
+        try {
+            Path file = CheatDetector.getInstance().getTraceRecorder().start(player != null ? player.getUuid() : null);
+            String who = player != null ? player.getName().getString() : "all players";
+            source.sendFeedback(() -> Text.literal("Recording movement trace of " + who + " to " + file).formatted(Formatting.GREEN), false);
+        } catch (IOException e) {
+            source.sendError(Text.literal("Error starting movement trace: " + e.getMessage()));
+            return 0;
+        }
+        
+        return 1;
+    }
+    
+    /**
+     * Stops recording the movement trace.
+     */
+    private static int stopTrace(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        TraceRecorder recorder = CheatDetector.getInstance().getTraceRecorder();
+        long samples = recorder.getSampleCount();
+        Path file = recorder.stop();
+        
+        if (file == null) {
+            source.sendFeedback(() -> Text.literal("No movement trace is being recorded.").formatted(Formatting.YELLOW), false);
+            return 1;
+        }
+        
+        source.sendFeedback(() -> Text.literal("Saved movement trace with " + samples + " samples to " + file).formatted(Formatting.GREEN), false);
+        return 1;
+    }
+    
+    /**
+     * Shows the timings of the instrumented detectors and event handlers.
+     */
+    private static int showPerf(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        PerfMonitor monitor = CheatDetector.getInstance().getPerfMonitor();
+        
+        if (!monitor.isEnabled()) {
+            source.sendFeedback(() -> Text.literal("Performance monitoring is disabled in the configuration.").formatted(Formatting.YELLOW), false);
+        }
+        
+        List<PerfMetric> metrics = monitor.getMetrics();
+        if (metrics.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("No performance metrics recorded yet.").formatted(Formatting.YELLOW), false);
+            return 1;
+        }
+        
+        long now = System.nanoTime();
+        source.sendFeedback(() -> Text.literal("=== CheatDetector Performance (p50 / p99 / max, alloc) ===").formatted(Formatting.GOLD), false);
+        for (PerfMetric metric : metrics) {
+            PerfMetric.WindowStats lastMinute = metric.summarize(PerfMonitor.ONE_MINUTE_NANOS, now);
+            PerfMetric.WindowStats lastTenMinutes = metric.summarize(PerfMonitor.TEN_MINUTES_NANOS, now);
+            
+            source.sendFeedback(() -> Text.literal(metric.getName() + " (" + metric.getInvocations() + " calls)").formatted(Formatting.YELLOW), false);
+            source.sendFeedback(() -> Text.literal("  1m:  " + formatWindow(lastMinute)).formatted(Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("  10m: " + formatWindow(lastTenMinutes)).formatted(Formatting.WHITE), false);
+        }
+        
+        return 1;
+    }
+    
+    /**
+     * Writes the timings of the instrumented detectors and event handlers to a file.
+     */
+    private static int exportPerf(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        CheatDetector.getInstance().getPerfMonitor().export(CheatDetector.PERF_EXPORT_FILE);
+        source.sendFeedback(() -> Text.literal("Exporting performance metrics to " + CheatDetector.PERF_EXPORT_FILE).formatted(Formatting.GREEN), false);
+        return 1;
+    }
+    
+    private static String formatWindow(PerfMetric.WindowStats stats) {
+        if (stats.count() == 0) {
+            return "no calls";
+        }
+        return String.format("%d calls, %.1f / %.1f / %.1f us, mean %.1f us, %d B/call",
+                stats.count(), stats.p50Nanos() / 1000.0, stats.p99Nanos() / 1000.0, stats.maxNanos() / 1000.0,
+                stats.meanNanos() / 1000.0, stats.allocatedBytes() / stats.count());
+    }
+    
     /**
      * Reloads the configuration.
      */
@@ -263,7 +408,9 @@ public class CommandHandler {
         ServerCommandSource source = context.getSource();
         
         try {
-            CheatDetector.getInstance().getConfig().load();
+            CheatDetector instance = CheatDetector.getInstance();
+            instance.getConfig().load();
+            instance.getBlockClassifier().rebuild(instance.getConfig().getValuableOres());
             source.sendFeedback(() -> Text.literal("Configuration reloaded successfully!").formatted(Formatting.GREEN), false);
         } catch (Exception e) {
             source.sendError(Text.literal("Error reloading configuration: " + e.getMessage()));
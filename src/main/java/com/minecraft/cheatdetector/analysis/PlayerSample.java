@@ -0,0 +1,118 @@
+package com.minecraft.cheatdetector.analysis;
+
+import com.minecraft.cheatdetector.data.PlayerTickSnapshot;
+import com.minecraft.cheatdetector.movement.MovementBatch;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.UUID;
+
+/**
+ * Immutable copy of the player state a detector needs for its analysis.
+ * Captured on the server thread and recorded as-is into movement traces, so
+ * detectors can be replayed without a server.
+ * Effect levels are the amplifier plus one, or 0 when the effect is not active.
+ * Samples built from movement packets also carry the number of client ticks the
+ * player moved since the previous sample, so speeds do not depend on arrival jitter
+ * or server lag; polled samples have no tick count. The client ticks only count
+ * as long as they keep pace with the packets' arrival, so a client running its
+ * ticks fast (a timer hack) cannot pass off its extra movement as extra time.
+ */
+public record PlayerSample(UUID playerUuid, long time,
+                           double x, double y, double z,
+                           double velocityX, double velocityY, double velocityZ,
+                           boolean onGround, boolean sprinting, boolean touchingWater,
+                           boolean creativeOrSpectator, boolean allowFlying, boolean fallFlying, boolean riding,
+                           int speedLevel, int slownessLevel, int jumpBoostLevel,
+                           int levitationLevel, int slowFallingLevel,
+                           int latency, int moveTicks) {
+    
+    // Length of a client tick in milliseconds
+    private static final long CLIENT_TICK_MILLIS = 50;
+    // How far the client's ticks may run ahead of their arrival before extra ticks stop counting as time
+    private static final long MAX_CLIENT_AHEAD_MILLIS = 300;
+    // How far they may fall behind, so a lag spike does not bank time for a later burst of fast ticks
+    private static final long MAX_CLIENT_BEHIND_MILLIS = 1000;
+    
+    /**
+     * Capture the state of a player from their snapshot of this tick.
+     * @param snapshot The player's filled snapshot
+     * @param time The capture time in milliseconds
+     * @return The captured sample
+     */
+    public static PlayerSample capture(PlayerTickSnapshot snapshot, long time) {
+        return capture(snapshot, time, snapshot.getX(), snapshot.getY(), snapshot.getZ(), snapshot.isOnGround(), 0);
+    }
+    
+    /**
+     * Capture the state of a player as reported by their latest movement packets.
+     * Position, ground state and time come from the packets, everything else from the snapshot.
+     * @param snapshot The player's filled snapshot
+     * @param moves The movement packets received since the previous sample, with a position
+     * @return The captured sample
+     */
+    public static PlayerSample capture(PlayerTickSnapshot snapshot, MovementBatch moves) {
+        return capture(snapshot, moves.getTime(), moves.getX(), moves.getY(), moves.getZ(), moves.isOnGround(),
+                moves.getMoveTicks());
+    }
+    
+    private static PlayerSample capture(PlayerTickSnapshot snapshot, long time, double x, double y, double z,
+                                        boolean onGround, int moveTicks) {
+        return new PlayerSample(snapshot.getPlayerUuid(), time,
+                x, y, z,
+                snapshot.getVelocityX(), snapshot.getVelocityY(), snapshot.getVelocityZ(),
+                onGround, snapshot.isSprinting(), snapshot.isTouchingWater(),
+                snapshot.isCreative() || snapshot.isSpectator(), snapshot.isAllowFlying(),
+                snapshot.isFallFlying(), snapshot.isRiding(),
+                snapshot.getSpeedLevel(), snapshot.getSlownessLevel(), snapshot.getJumpBoostLevel(),
+                snapshot.getLevitationLevel(), snapshot.getSlowFallingLevel(),
+                snapshot.getLatency(), moveTicks);
+    }
+    
+    /**
+     * Get the position of the sample.
+     * @return The position
+     */
+    public Vec3d position() {
+        return new Vec3d(x, y, z);
+    }
+    
+    /**
+     * Get the time the player moved for since an earlier sample.
+     * @param previousTime The time of the earlier sample in milliseconds
+     * @param clientAheadMillis How far the client's ticks ran ahead of their arrival up to the earlier sample
+     * @return The client ticks moved if known, else the time between the samples, in seconds
+     */
+    public double elapsedSeconds(long previousTime, long clientAheadMillis) {
+        long arrivalMillis = time - previousTime;
+        if (moveTicks <= 0) {
+            return arrivalMillis / 1000.0;
+        }
+        return countedMillis(arrivalMillis, clientAheadMillis) / 1000.0;
+    }
+    
+    /**
+     * Get how far the client's ticks ran ahead of their arrival, including this sample.
+     * @param previousTime The time of the earlier sample in milliseconds
+     * @param clientAheadMillis How far the client's ticks ran ahead of their arrival up to the earlier sample
+     * @return The lead in milliseconds, negative if the client fell behind
+     */
+    public long clientAheadMillis(long previousTime, long clientAheadMillis) {
+        if (moveTicks <= 0) {
+            return clientAheadMillis;
+        }
+        long arrivalMillis = time - previousTime;
+        long ahead = clientAheadMillis + countedMillis(arrivalMillis, clientAheadMillis) - arrivalMillis;
+        return Math.max(ahead, -MAX_CLIENT_BEHIND_MILLIS);
+    }
+    
+    /**
+     * Get the part of the client ticks of this sample that counts as time.
+     * Ticks beyond the allowed lead are not counted, down to the arrival interval.
+     */
+    private long countedMillis(long arrivalMillis, long clientAheadMillis) {
+        long clientMillis = moveTicks * CLIENT_TICK_MILLIS;
+        long ahead = Math.max(clientAheadMillis + clientMillis - arrivalMillis, -MAX_CLIENT_BEHIND_MILLIS);
+        long excess = Math.max(0, ahead - MAX_CLIENT_AHEAD_MILLIS);
+        return Math.max(clientMillis - excess, Math.min(clientMillis, arrivalMillis));
+    }
+}
@@ -0,0 +1,123 @@
+package com.minecraft.cheatdetector.analysis;
+
+import com.minecraft.cheatdetector.config.ModConfig;
+
+import java.util.UUID;
+
+/**
+ * Server-wide distributions of the statistics the detectors judge players by,
+ * so thresholds can follow what the live population actually does instead of
+ * fixed constants. Detectors record every value they compute, from any thread;
+ * the server thread turns the distributions into limits once a second, and a
+ * detector reads its limit as a single field.
+ * A limit is NaN until enough values from enough distinct players were
+ * recorded, and detectors then fall back to their configured constant.
+ */
+public class PopulationBaselines {
+    private static final int REFRESH_INTERVAL_TICKS = 20;
+    
+    private final ModConfig config;
+    
+    // Horizontal speed relative to the walking speed the player's effects and sprinting allow
+    private final PopulationHistogram speedRatios = new PopulationHistogram(4.0, 800);
+    // Valuable ores per stone block mined
+    private final PopulationHistogram oreRatios = new PopulationHistogram(0.25, 1000);
+    // Attacks per second during rapid attack sequences
+    private final PopulationHistogram attackRates = new PopulationHistogram(40.0, 800);
+    
+    private volatile double speedRatioLimit = Double.NaN;
+    private volatile double oreRatioLimit = Double.NaN;
+    private volatile double attackRateLimit = Double.NaN;
+    
+    /**
+     * Create empty baselines.
+     * @param config The mod configuration
+     */
+    public PopulationBaselines(ModConfig config) {
+        this.config = config;
+    }
+    
+    /**
+     * Record a player's speed relative to the speed they are allowed to move at.
+     * @param player The player's UUID
+     * @param ratio The speed ratio
+     */
+    public void recordSpeedRatio(UUID player, double ratio) {
+        speedRatios.record(player, ratio, config.getBaselineMaxSamplesPerPlayer());
+    }
+    
+    /**
+     * Record a player's ratio of valuable ores to stone mined.
+     * @param player The player's UUID
+     * @param ratio The ore ratio
+     */
+    public void recordOreRatio(UUID player, double ratio) {
+        oreRatios.record(player, ratio, config.getBaselineMaxSamplesPerPlayer());
+    }
+    
+    /**
+     * Record a player's attack rate over a rapid attack sequence.
+     * @param player The player's UUID
+     * @param attacksPerSecond The attack rate
+     */
+    public void recordAttackRate(UUID player, double attacksPerSecond) {
+        attackRates.record(player, attacksPerSecond, config.getBaselineMaxSamplesPerPlayer());
+    }
+    
+    /**
+     * Refresh the limits and age the distributions. Called at the end of every server tick.
+     * @param tick The current server tick
+     */
+    public void tick(long tick) {
+        if (config.getBaselineWindowTicks() > 0 && tick % config.getBaselineWindowTicks() == 0) {
+            speedRatios.rotate();
+            oreRatios.rotate();
+            attackRates.rotate();
+        }
+        
+        if (tick % REFRESH_INTERVAL_TICKS == 0) {
+            refresh();
+        }
+    }
+    
+    /**
+     * Recompute the limits from the current distributions.
+     */
+    public void refresh() {
+        speedRatioLimit = limit(speedRatios, config.getSpeedBaselinePercentile());
+        oreRatioLimit = limit(oreRatios, config.getXrayBaselinePercentile());
+        attackRateLimit = limit(attackRates, config.getAttackRateBaselinePercentile());
+    }
+    
+    /**
+     * Get the configured percentile of the recorded speed ratios.
+     * @return The speed ratio limit, or NaN if the baseline is not established
+     */
+    public double getSpeedRatioLimit() {
+        return speedRatioLimit;
+    }
+    
+    /**
+     * Get the configured percentile of the recorded ore ratios.
+     * @return The ore ratio limit, or NaN if the baseline is not established
+     */
+    public double getOreRatioLimit() {
+        return oreRatioLimit;
+    }
+    
+    /**
+     * Get the configured percentile of the recorded attack rates.
+     * @return The attack rate limit in attacks per second, or NaN if the baseline is not established
+     */
+    public double getAttackRateLimit() {
+        return attackRateLimit;
+    }
+    
+    private double limit(PopulationHistogram histogram, double percentile) {
+        if (!config.isAdaptiveThresholds() || histogram.getCount() < config.getBaselineMinSamples()
+                || histogram.getPlayerCount() < config.getBaselineMinPlayers()) {
+            return Double.NaN;
+        }
+        return histogram.getValueAtPercentile(percentile);
+    }
+}
@@ -0,0 +1,139 @@
+package com.minecraft.cheatdetector.analysis;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bin histogram of a non-negative statistic across all players.
+ * Recording is two atomic increments, safe from any thread without locks.
+ * Values are kept in two generations: percentiles are read over both, and
+ * rotating drops the older one, so the distribution follows the live
+ * population rather than everything ever recorded.
+ * Each player only contributes a limited number of values per generation, so
+ * a single player, such as a cheater on a small server, cannot set the
+ * percentiles by sampling more often than everyone else.
+ */
+public class PopulationHistogram {
+    private final int bins;
+    private final double binWidth;
+    
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+    
+    // Values recorded per player in each generation
+    private volatile ConcurrentHashMap<UUID, AtomicInteger> currentContributions = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<UUID, AtomicInteger> previousContributions = new ConcurrentHashMap<>();
+    
+    /**
+     * Create an empty histogram.
+     * @param max The upper end of the last bin; larger values are counted in it
+     * @param bins The number of equal bins between 0 and max
+     */
+    public PopulationHistogram(double max, int bins) {
+        if (max <= 0 || bins <= 0) {
+            throw new IllegalArgumentException("Range and bin count must be positive: " + max + ", " + bins);
+        }
+        this.bins = bins;
+        this.binWidth = max / bins;
+        this.current = new AtomicLongArray(bins);
+        this.previous = new AtomicLongArray(bins);
+    }
+    
+    /**
+     * Record a value of a player. Negative and NaN values are ignored, as are
+     * values beyond the player's share of the current generation.
+     * @param player The UUID of the player the value is about
+     * @param value The value to record
+     * @param maxPerPlayer The number of values a player may contribute per generation
+     */
+    public void record(UUID player, double value, int maxPerPlayer) {
+        if (!(value >= 0)) {
+            return;
+        }
+        if (currentContributions.computeIfAbsent(player, uuid -> new AtomicInteger()).incrementAndGet() > maxPerPlayer) {
+            return;
+        }
+        int bin = (int) Math.min(value / binWidth, bins - 1);
+        current.incrementAndGet(bin);
+    }
+    
+    /**
+     * Start a new generation, dropping the values of the one before the current.
+     * Must only be called from one thread at a time.
+     */
+    public void rotate() {
+        AtomicLongArray recycled = previous;
+        for (int i = 0; i < bins; i++) {
+            recycled.set(i, 0);
+        }
+        previous = current;
+        current = recycled;
+        
+        ConcurrentHashMap<UUID, AtomicInteger> recycledContributions = previousContributions;
+        recycledContributions.clear();
+        previousContributions = currentContributions;
+        currentContributions = recycledContributions;
+    }
+    
+    /**
+     * Get the number of distinct players who contributed to either generation.
+     * @return The player count
+     */
+    public int getPlayerCount() {
+        ConcurrentHashMap<UUID, AtomicInteger> newer = currentContributions;
+        ConcurrentHashMap<UUID, AtomicInteger> older = previousContributions;
+        int count = newer.size();
+        for (UUID player : older.keySet()) {
+            if (!newer.containsKey(player)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Get the number of values in both generations.
+     * @return The count
+     */
+    public long getCount() {
+        AtomicLongArray newer = current;
+        AtomicLongArray older = previous;
+        long count = 0;
+        for (int i = 0; i < bins; i++) {
+            count += newer.get(i) + older.get(i);
+        }
+        return count;
+    }
+    
+    /**
+     * Get the value below which the given percentage of values in both generations fall.
+     * @param percentile The percentile, between 0 and 100
+     * @return The upper edge of the bin holding the percentile, or NaN if nothing was recorded
+     */
+    public double getValueAtPercentile(double percentile) {
+        AtomicLongArray newer = current;
+        AtomicLongArray older = previous;
+        
+        long[] counts = new long[bins];
+        long count = 0;
+        for (int i = 0; i < bins; i++) {
+            counts[i] = newer.get(i) + older.get(i);
+            count += counts[i];
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < bins; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (i + 1) * binWidth;
+            }
+        }
+        return bins * binWidth;
+    }
+}
@@ -1,18 +1,20 @@
 package com.minecraft.cheatdetector.cheat;
 
-import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.analysis.PopulationBaselines;
 import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.AttackDirectionBuffer;
+import com.minecraft.cheatdetector.data.CheckType;
+import com.minecraft.cheatdetector.data.DoubleRingBuffer;
 import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.lagcomp.LagCompensator;
 import com.minecraft.cheatdetector.report.ViolationManager;
+import com.minecraft.cheatdetector.report.ViolationType;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
 import net.minecraft.entity.Entity;
-import net.minecraft.entity.LivingEntity;
-import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.util.math.Box;
-import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.math.MathHelper;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.UUID;
 
 /**
  * Detects combat-related cheats like kill aura and reach hacks.
@@ -20,15 +22,24 @@ import java.util.List;
 public class CombatHackDetector {
     private final ViolationManager violationManager;
     private final ModConfig config;
+    private final DetectorClock clock;
+    private final LagCompensator lagCompensator;
+    private final PopulationBaselines populationBaselines;
 
     /**
      * Create a new combat hack detector.
      * @param violationManager The violation manager
      * @param config The mod configuration
+     * @param clock The detector clock
+     * @param lagCompensator The recorded positions reach is measured against
+     * @param populationBaselines The server-wide attack rate distribution
      */
-    public CombatHackDetector(ViolationManager violationManager, ModConfig config) {
+    public CombatHackDetector(ViolationManager violationManager, ModConfig config, DetectorClock clock, LagCompensator lagCompensator, PopulationBaselines populationBaselines) {
         this.violationManager = violationManager;
         this.config = config;
+        this.clock = clock;
+        this.lagCompensator = lagCompensator;
+        this.populationBaselines = populationBaselines;
     }
 
     /**
@@ -36,213 +47,236 @@ public class CombatHackDetector {
      * Kill aura allows players to automatically attack entities,
      * often with rapid hit rates or unusual angles.
      * 
-     * @param player The player to check
+     * @param context The attacker
      * @param target The entity being attacked
+     * @param time The time the attack arrived in milliseconds, read when it was handled
+     *             rather than at the start of the tick, so intervals are not rounded to ticks
      */
-    public void checkKillAura(ServerPlayerEntity player, Entity target) {
+    public void checkKillAura(PlayerContext context, Entity target, long time) {
         // Skip players in creative mode
-        if (player.isCreative()) {
+        if (context.hasAnyState(PlayerContext.STATE_CREATIVE)) {
             return;
         }
 
-        PlayerDataManager.PlayerData data = CheatDetector.getInstance().getPlayerDataManager().getPlayerData(player);
+        ServerPlayerEntity player = context.getPlayer();
+        PlayerDataManager.PlayerData data = context.getData();
         
+        // Check kill aura patterns
+        evaluateAttack(data, target.getUuid(), time);
+        recordAttackDirection(player, data, target);
+        checkMultiAngleAttacks(player, data, time);
+    }
+    
+    /**
+     * Record an attack and check the attack timing and the number of targets.
+     * Takes the target's UUID rather than the entity, as a trace records no more than that.
+     * 
+     * @param data The attacker's data
+     * @param targetUuid The UUID of the attacked entity
+     * @param time The time of the attack in milliseconds
+     */
+    public void evaluateAttack(PlayerDataManager.PlayerData data, UUID targetUuid, long time) {
         // Record this attack
-        data.recordAttack(target.getId());
+        long previousAttackTime = data.getLastAttackTime();
+        data.recordAttack(targetUuid, time);
         
-        // Check kill aura patterns
-        checkAttackRate(player, data);
-        checkMultiAngleAttacks(player, data);
+        checkAttackRate(data, previousAttackTime);
+        checkTargetCount(data, time);
+    }
+    
+    /**
+     * Check if a player attacked more distinct entities within the last 2 seconds than allowed.
+     * Kill aura hits every entity in range, where a player switches targets by hand.
+     * 
+     * @param data The player's data
+     * @param time The time of the attack in milliseconds
+     */
+    private void checkTargetCount(PlayerDataManager.PlayerData data, long time) {
+        int targets = data.getRecentTargetCount(time);
+        if (targets <= config.getMaxTargetsPerTimeWindow()) {
+            return;
+        }
+        
+        data.increaseViolationLevel(CheckType.KILL_AURA, time);
+        
+        if (data.getViolationLevel(CheckType.KILL_AURA, time) >= config.getMaxKillAuraViolationsBeforeAction()) {
+            violationManager.logViolation(data.getUuid(), data.getPlayerName(), ViolationType.KILL_AURA, 
+                    "Attacked %.0f targets within 2 seconds (max allowed: %.0f)", targets, config.getMaxTargetsPerTimeWindow());
+            
+            // Handle the violation
+            violationManager.handleKillAuraViolation(data.getUuid(), targets);
+            
+            // Reset violation level after taking action
+            data.decreaseViolationLevel(CheckType.KILL_AURA, 3, time);
+        }
     }
 
     /**
      * Check if a player's attack rate is suspiciously high.
+     * Mean and spread come from the interval buffer's running sums.
      * 
-     * @param player The player to check
      * @param data The player's data
+     * @param previousAttackTime The time of the attack before this one, or 0 if there was none
      */
-    private void checkAttackRate(ServerPlayerEntity player, PlayerDataManager.PlayerData data) {
-        long currentTime = System.currentTimeMillis();
-        long timeSinceLastAttack = currentTime - data.getLastAttackTime();
+    void checkAttackRate(PlayerDataManager.PlayerData data, long previousAttackTime) {
+        long currentTime = data.getLastAttackTime();
+        long timeSinceLastAttack = currentTime - previousAttackTime;
         
         // Ignore first attack or attacks that are reasonably spaced
-        if (data.getLastAttackTime() == 0 || timeSinceLastAttack > 200) {
-            data.setLastAttackTime(currentTime);
+        if (previousAttackTime == 0 || timeSinceLastAttack > 200) {
             return;
         }
         
         // Record the time between attacks
-        data.addAttackInterval(timeSinceLastAttack);
-        data.setLastAttackTime(currentTime);
+        DoubleRingBuffer intervals = data.getAttackIntervals();
+        intervals.add(timeSinceLastAttack);
         
         // Only check if we have enough data
-        if (data.getAttackIntervals().size() >= 10) {
-            // Calculate average attack interval
-            double avgInterval = data.getAttackIntervals().stream().mapToLong(Long::longValue).average().orElse(0);
+        if (intervals.size() < 10) {
+            return;
+        }
+        
+        // Judge against the server-wide attack rates once they are established,
+        // which may only allow faster attacks than configured, never slower ones
+        double avgInterval = intervals.mean();
+        populationBaselines.recordAttackRate(data.getUuid(), 1000.0 / avgInterval);
+        double populationLimit = populationBaselines.getAttackRateLimit();
+        double minAttackInterval = Double.isNaN(populationLimit)
+                ? config.getKillAuraMinAttackInterval()
+                : Math.min(config.getKillAuraMinAttackInterval(), 1000.0 / populationLimit);
+        
+        double stdDev = intervals.standardDeviation();
+        
+        // If attacks are unusually rapid (below threshold and consistent);
+        // the level decays by itself while attack patterns are normal
+        if (avgInterval < minAttackInterval && stdDev < 50) {
+            // Low variation in timing suggests automated attacks
+            data.increaseViolationLevel(CheckType.KILL_AURA, currentTime);
             
-            // If attacks are unusually rapid (below threshold and consistent)
-            if (avgInterval < config.getKillAuraMinAttackInterval()) {
-                // Calculate standard deviation to determine consistency
-                double stdDev = calculateStandardDeviation(data.getAttackIntervals(), avgInterval);
+            if (data.getViolationLevel(CheckType.KILL_AURA, currentTime) >= config.getMaxKillAuraViolationsBeforeAction()) {
+                violationManager.logViolation(data.getUuid(), data.getPlayerName(), ViolationType.KILL_AURA, 
+                        "Rapid attacks (avg: %.2fms, stdDev: %.2f)", avgInterval, stdDev);
                 
-                // Consistent rapid attacks are suspicious
-                if (stdDev < 50) { // Low variation in timing suggests automated attacks
-                    data.increaseKillAuraViolationLevel();
-                    
-                    if (data.getKillAuraViolationLevel() >= config.getMaxKillAuraViolationsBeforeAction()) {
-                        violationManager.logViolation(player, "KillAura", 
-                                String.format("Rapid attacks (avg: %.2fms, stdDev: %.2f)", avgInterval, stdDev));
-                        
-                        // Handle the violation
-                        violationManager.handleKillAuraViolation(player, avgInterval);
-                        
-                        // Reset violation level after taking action
-                        for (int i = 0; i < 3; i++) {
-                            data.decreaseKillAuraViolationLevel();
-                        }
-                    }
-                }
-            } else {
-                // Gradually decrease violation level if attack patterns are normal
-                if (currentTime - data.getLastKillAuraViolationTime() > 10000) { // 10 seconds
-                    data.decreaseKillAuraViolationLevel();
-                }
-            }
-            
-            // Trim the list to prevent it from growing too large
-            while (data.getAttackIntervals().size() > 20) {
-                data.getAttackIntervals().remove(0);
+                // Handle the violation
+                violationManager.handleKillAuraViolation(data.getUuid(), (int) avgInterval);
+                
+                // Reset violation level after taking action
+                data.decreaseViolationLevel(CheckType.KILL_AURA, 3, currentTime);
             }
         }
     }
     
+    /**
+     * Record the direction of an attack, so the multi-angle check needs no world query.
+     * 
+     * @param player The attacking player
+     * @param data The player's data
+     * @param target The entity being attacked
+     */
+    private void recordAttackDirection(ServerPlayerEntity player, PlayerDataManager.PlayerData data, Entity target) {
+        double dx = target.getX() - player.getX();
+        double dz = target.getZ() - player.getZ();
+        float yaw = (float) (MathHelper.atan2(dz, dx) * MathHelper.DEGREES_PER_RADIAN) - 90.0f;
+        data.getAttackDirections().add(target.getId(), MathHelper.wrapDegrees(yaw), clock.getTick());
+    }
+    
     /**
      * Check if a player is attacking multiple entities in different directions too quickly.
      * This can indicate kill aura or other automated combat cheats.
      * 
      * @param player The player to check
      * @param data The player's data
+     * @param time The time of the attack in milliseconds
      */
-    private void checkMultiAngleAttacks(ServerPlayerEntity player, PlayerDataManager.PlayerData data) {
-        List<Integer> recentTargets = data.getRecentAttackTargets();
+    private void checkMultiAngleAttacks(ServerPlayerEntity player, PlayerDataManager.PlayerData data, long time) {
+        AttackDirectionBuffer directions = data.getAttackDirections();
+        
+        // Only consider attacks within the last 2 seconds
+        long oldestTick = clock.getTick() - 40;
+        int first = directions.size();
+        while (first > 0 && directions.getTick(first - 1) >= oldestTick) {
+            first--;
+        }
         
         // Only check if we have enough recent attacks
-        if (recentTargets.size() < 3) {
+        if (directions.size() - first < 3) {
             return;
         }
         
-        // Get entities around the player
-        List<Entity> nearbyEntities = new ArrayList<>();
-        Box box = player.getBoundingBox().expand(5.0);
-        player.getWorld().getOtherEntities(player, box, entity -> entity instanceof LivingEntity).forEach(nearbyEntities::add);
-        
-        // Check if player has attacked multiple entities in different directions
+        // Check if player has attacked different entities in different directions
         int differentAngleAttacks = 0;
-        Vec3d lastDirection = null;
-        
-        for (Entity entity : nearbyEntities) {
-            if (recentTargets.contains(entity.getId())) {
-                Vec3d direction = entity.getPos().subtract(player.getPos()).normalize();
-                
-                if (lastDirection != null) {
-                    // Calculate angle between attack directions
-                    double angle = Math.toDegrees(Math.acos(lastDirection.dotProduct(direction)));
-                    
-                    // If angle is significant, count it as a different angle attack
-                    if (angle > 45) {
-                        differentAngleAttacks++;
-                    }
-                }
-                
-                lastDirection = direction;
+        for (int i = first + 1; i < directions.size(); i++) {
+            if (directions.getTargetId(i) == directions.getTargetId(i - 1)) {
+                continue;
+            }
+            
+            // If angle is significant, count it as a different angle attack
+            float angle = Math.abs(MathHelper.wrapDegrees(directions.getYaw(i) - directions.getYaw(i - 1)));
+            if (angle > 45) {
+                differentAngleAttacks++;
             }
         }
         
         // If player attacked in multiple different directions within a short time
         if (differentAngleAttacks >= 2) {
-            data.increaseKillAuraViolationLevel();
+            data.increaseViolationLevel(CheckType.KILL_AURA, time);
             
-            if (data.getKillAuraViolationLevel() >= config.getMaxKillAuraViolationsBeforeAction()) {
-                violationManager.logViolation(player, "KillAura", 
-                        String.format("Multiple angle attacks (%d different angles)", differentAngleAttacks));
+            if (data.getViolationLevel(CheckType.KILL_AURA, time) >= config.getMaxKillAuraViolationsBeforeAction()) {
+                violationManager.logViolation(player, ViolationType.KILL_AURA, 
+                        "Multiple angle attacks (%.0f different angles)", differentAngleAttacks);
                 
                 // Handle the violation
-                violationManager.handleKillAuraViolation(player, differentAngleAttacks);
+                violationManager.handleKillAuraViolation(player.getUuid(), differentAngleAttacks);
                 
                 // Reset violation level after taking action
-                for (int i = 0; i < 3; i++) {
-                    data.decreaseKillAuraViolationLevel();
-                }
+                data.decreaseViolationLevel(CheckType.KILL_AURA, 3, time);
             }
         }
     }
     
     /**
      * Check if a player's attack exceeds the maximum allowed reach distance.
+     * The distance is measured from the attacker's eyes to the target's hitbox
+     * as it was on the attacker's screen, rewound by their latency, so lag does
+     * not count against the player and the limit needs no latency allowance.
      * 
-     * @param player The player to check
+     * @param context The attacker
      * @param target The entity being attacked
+     * @param time The time the attack arrived in milliseconds
      */
-    public void checkReach(ServerPlayerEntity player, Entity target) {
+    public void checkReach(PlayerContext context, Entity target, long time) {
         // Skip players in creative mode
-        if (player.isCreative()) {
+        if (context.hasAnyState(PlayerContext.STATE_CREATIVE)) {
             return;
         }
         
-        // Calculate actual distance to target
-        double distance = player.squaredDistanceTo(target);
-        double reach = Math.sqrt(distance);
-        
-        // Get player data
-        PlayerDataManager.PlayerData data = CheatDetector.getInstance().getPlayerDataManager().getPlayerData(player);
+        ServerPlayerEntity player = context.getPlayer();
         
-        // Maximum allowed reach (vanilla is typically 3.0 blocks in survival, add some tolerance)
-        double maxReach = target instanceof PlayerEntity ? config.getMaxPvpReach() : config.getMaxPveReach();
+        // Targets that were not recorded yet, like mobs hit as a fight starts, cannot be rewound
+        double distance = lagCompensator.squaredDistanceAtClientTick(player, target, clock.getTick());
+        if (Double.isNaN(distance)) {
+            return;
+        }
+        double reach = Math.sqrt(distance);
         
-        // Account for latency
-        int ping = player.networkHandler.getLatency();
-        double pingCompensation = ping / 1000.0 * 0.5; // 0.5 blocks per second of ping
-        maxReach += pingCompensation;
+        PlayerDataManager.PlayerData data = context.getData();
+        double maxReach = config.getMaxReachDistance();
         
-        // Check if reach exceeds limit
+        // Check if reach exceeds limit; the level decays by itself for normal reaches
         if (reach > maxReach) {
             // Increment violation level
-            data.increaseReachViolationLevel();
+            data.increaseViolationLevel(CheckType.REACH, time);
             
-            if (data.getReachViolationLevel() >= config.getMaxReachViolationsBeforeAction()) {
-                violationManager.logViolation(player, "ReachHack", 
-                        String.format("Reached %.2f blocks (max allowed: %.2f, ping: %dms)", reach, maxReach, ping));
+            if (data.getViolationLevel(CheckType.REACH, time) >= config.getMaxReachViolationsBeforeAction()) {
+                violationManager.logViolation(player, ViolationType.REACH_HACK, 
+                        "Reached %.2f blocks (max allowed: %.2f, ping: %.0fms)", reach, maxReach, context.getSnapshot().getLatency());
                 
                 // Handle the violation
-                violationManager.handleReachViolation(player, reach);
+                violationManager.handleReachHackViolation(player.getUuid(), reach);
                 
                 // Reset violation level after taking action
-                for (int i = 0; i < 3; i++) {
-                    data.decreaseReachViolationLevel();
-                }
+                data.decreaseViolationLevel(CheckType.REACH, 3, time);
             }
-        } else {
-            // Gradually decrease violation level for normal reaches
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - data.getLastReachViolationTime() > 10000) { // 10 seconds
-                data.decreaseReachViolationLevel();
-            }
-        }
-    }
-    
-    /**
-     * Calculate the standard deviation of a list of long values.
-     * 
-     * @param values The values
-     * @param mean The mean of the values
-     * @return The standard deviation
-     */
-    private double calculateStandardDeviation(List<Long> values, double mean) {
-        double sumSquaredDiffs = 0;
-        for (long value : values) {
-            double diff = value - mean;
-            sumSquaredDiffs += diff * diff;
         }
-        return Math.sqrt(sumSquaredDiffs / values.size());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.minecraft.cheatdetector.cheat;
+
+import java.util.Set;
+
+/**
+ * A per-player check run by the detector registry.
+ * The registry looks up the player's data and works out the player states every
+ * detector guards against once per player per tick, skips the players a detector
+ * does not apply to, and only dispatches a detector when one of its inputs changed.
+ */
+public interface Detector {
+    
+    /**
+     * Get the name of the detector, used for logging and as its metric name.
+     * @return The name
+     */
+    String getName();
+    
+    /**
+     * Get the inputs the detector judges.
+     * @return The inputs, or an empty set to run at every interval regardless of input
+     */
+    Set<DetectorInput> getInputs();
+    
+    /**
+     * Get the number of ticks between the starts of two passes over the players.
+     * Read before every pass, so an interval taken from the configuration follows a reload.
+     * @return The interval in ticks
+     */
+    int getIntervalTicks();
+    
+    /**
+     * Get the player states in which the detector does not apply.
+     * @return A mask of {@link PlayerContext} state flags
+     */
+    int getSkippedStates();
+    
+    /**
+     * Check a player.
+     * @param context The player, their data and their states this tick
+     */
+    void check(PlayerContext context);
+}
@@ -0,0 +1,29 @@
+package com.minecraft.cheatdetector.cheat;
+
+/**
+ * The kinds of player input a detector judges. A detector is only dispatched
+ * for a player when one of its inputs changed since it last checked them.
+ */
+public enum DetectorInput {
+    // Movement packets received from the client
+    MOVEMENT(true),
+    // Attacks on other entities
+    COMBAT(false),
+    // Blocks broken
+    MINING(false);
+    
+    private final boolean polled;
+    
+    DetectorInput(boolean polled) {
+        this.polled = polled;
+    }
+    
+    /**
+     * Check whether changes to the input are found by looking at each player,
+     * rather than reported by an event as they happen.
+     * @return Whether the input is polled
+     */
+    public boolean isPolled() {
+        return polled;
+    }
+}
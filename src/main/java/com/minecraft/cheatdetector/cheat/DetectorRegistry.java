@@ -0,0 +1,209 @@
+package com.minecraft.cheatdetector.cheat;
+
+import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.data.PlayerTickSnapshot;
+import com.minecraft.cheatdetector.movement.MovementQueue;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
+import com.minecraft.cheatdetector.scheduler.DetectorScheduler;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Holds the registered detectors and dispatches them for each player.
+ * Every detector is scheduled as its own check, but all of them share one
+ * {@link PlayerContext} per player, prepared once per tick: a single map lookup
+ * replaces each detector fetching the player's data, and one pass over the
+ * player entity fills the {@link PlayerTickSnapshot} every detector reads
+ * instead of querying the entity itself. Snapshots of players who left are
+ * reused for players who join. Detectors are only run for players whose inputs
+ * changed since the detector last ran. Detectors judging only inputs reported
+ * by events are not polled at all: each event queues the player for them, and
+ * their passes walk just the queued players.
+ * Only used on the server thread.
+ */
+public class DetectorRegistry {
+    private final PlayerDataManager playerDataManager;
+    private final DetectorClock clock;
+    private final ModConfig config;
+    
+    private final List<Detector> detectors = new ArrayList<>();
+    // Bit set of the input ordinals of each detector, by registration index
+    private int[] inputMasks = new int[0];
+    // Players waiting for each event-driven detector, or null for polled detectors, by registration index
+    private final List<ArrayDeque<PlayerContext>> pending = new ArrayList<>();
+    private final Map<UUID, PlayerContext> contexts = new HashMap<>();
+    private final ArrayDeque<PlayerTickSnapshot> snapshotPool = new ArrayDeque<>();
+    
+    /**
+     * Create an empty registry.
+     * @param playerDataManager The player data manager
+     * @param clock The clock the current tick is read from
+     * @param config The mod configuration
+     */
+    public DetectorRegistry(PlayerDataManager playerDataManager, DetectorClock clock, ModConfig config) {
+        this.playerDataManager = playerDataManager;
+        this.clock = clock;
+        this.config = config;
+    }
+    
+    /**
+     * Register a detector.
+     * @param detector The detector
+     */
+    public void register(Detector detector) {
+        if (detectors.size() == Long.SIZE) {
+            throw new IllegalStateException("Cannot register more than " + Long.SIZE + " detectors");
+        }
+        int mask = 0;
+        boolean polled = detector.getInputs().isEmpty();
+        for (DetectorInput input : detector.getInputs()) {
+            mask |= 1 << input.ordinal();
+            polled |= input.isPolled();
+        }
+        detectors.add(detector);
+        inputMasks = Arrays.copyOf(inputMasks, detectors.size());
+        inputMasks[detectors.size() - 1] = mask;
+        pending.add(polled ? null : new ArrayDeque<>());
+    }
+    
+    /**
+     * Schedule every registered detector with a scheduler.
+     * @param scheduler The scheduler running the per-player checks
+     */
+    public void schedule(DetectorScheduler scheduler) {
+        for (int i = 0; i < detectors.size(); i++) {
+            int index = i;
+            Detector detector = detectors.get(index);
+            if (pending.get(index) == null) {
+                scheduler.register(detector.getName(), detector::getIntervalTicks, player -> dispatch(index, player));
+            } else {
+                scheduler.register(detector.getName(), detector::getIntervalTicks, player -> dispatch(index, player),
+                        pass -> drainPending(index, pass));
+            }
+        }
+    }
+    
+    /**
+     * Get the shared context of a player, preparing it if this tick has not yet.
+     * @param player The player
+     * @return The player's context
+     */
+    public PlayerContext getContext(ServerPlayerEntity player) {
+        long tick = clock.getTick();
+        PlayerContext context = contexts.get(player.getUuid());
+        if (context == null) {
+            PlayerTickSnapshot snapshot = snapshotPool.poll();
+            if (snapshot == null) {
+                snapshot = new PlayerTickSnapshot();
+            }
+            context = new PlayerContext(player, playerDataManager.getPlayerData(player), snapshot, detectors.size());
+            contexts.put(player.getUuid(), context);
+        } else if (context.isPreparedFor(player, tick)) {
+            return context;
+        }
+        
+        context.prepare(player, tick, config.getBypassPermissionLevel());
+        
+        // Movement arrives on the network thread, so it is noticed here instead of being marked
+        MovementQueue queue = MovementQueue.of(player);
+        if (queue != null && !queue.isEmpty()) {
+            context.markInputChanged(DetectorInput.MOVEMENT);
+        }
+        return context;
+    }
+    
+    /**
+     * Note that an input of a player changed, so the detectors judging it run on their next pass.
+     * @param context The player's context
+     * @param input The input that changed
+     */
+    public void markChanged(PlayerContext context, DetectorInput input) {
+        int inputBit = 1 << input.ordinal();
+        for (int i = 0; i < detectors.size(); i++) {
+            ArrayDeque<PlayerContext> queue = pending.get(i);
+            if (queue != null && (inputMasks[i] & inputBit) != 0 && context.markQueued(i)) {
+                queue.add(context);
+            }
+        }
+        context.markInputChanged(input);
+    }
+    
+    /**
+     * Check whether a player is checked at all.
+     * @param player The player
+     * @return false if the player may bypass the anti-cheat
+     */
+    public boolean isEligible(ServerPlayerEntity player) {
+        return !getContext(player).hasAnyState(PlayerContext.STATE_BYPASS);
+    }
+    
+    /**
+     * Run every detector that applies to a player now, whether or not its inputs changed.
+     * @param player The player
+     */
+    public void checkNow(ServerPlayerEntity player) {
+        PlayerContext context = getContext(player);
+        for (int i = 0; i < detectors.size(); i++) {
+            Detector detector = detectors.get(i);
+            if (!context.hasAnyState(detector.getSkippedStates())) {
+                context.markChecked(i);
+                detector.check(context);
+            }
+        }
+    }
+    
+    /**
+     * Forget a player who left.
+     * @param playerUuid The player's UUID
+     */
+    public void remove(UUID playerUuid) {
+        PlayerContext context = contexts.remove(playerUuid);
+        if (context != null) {
+            snapshotPool.push(context.getSnapshot());
+        }
+    }
+    
+    /**
+     * Get the registered detectors.
+     * @return The detectors in registration order
+     */
+    public List<Detector> getDetectors() {
+        return List.copyOf(detectors);
+    }
+    
+    private void drainPending(int index, List<ServerPlayerEntity> pass) {
+        ArrayDeque<PlayerContext> queue = pending.get(index);
+        PlayerContext context;
+        while ((context = queue.poll()) != null) {
+            context.clearQueued(index);
+            
+            // Players who left since the event have no context any more
+            if (contexts.get(context.getPlayer().getUuid()) == context) {
+                pass.add(context.getPlayer());
+            }
+        }
+    }
+    
+    private void dispatch(int index, ServerPlayerEntity player) {
+        PlayerContext context = getContext(player);
+        int inputMask = inputMasks[index];
+        if (inputMask != 0 && !context.hasChangedSince(inputMask, index)) {
+            return;
+        }
+        
+        // Changes the detector does not apply to count as judged
+        context.markChecked(index);
+        Detector detector = detectors.get(index);
+        if (!context.hasAnyState(detector.getSkippedStates() | PlayerContext.STATE_BYPASS)) {
+            detector.check(context);
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.minecraft.cheatdetector.cheat;
 
-import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.analysis.PlayerSample;
 import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.CheckType;
 import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.data.PlayerTickSnapshot;
 import com.minecraft.cheatdetector.report.ViolationManager;
-import net.minecraft.entity.effect.StatusEffects;
+import com.minecraft.cheatdetector.report.ViolationType;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.util.math.Vec3d;
 
 /**
  * Detects flight-related cheats.
@@ -14,15 +16,23 @@ import net.minecraft.util.math.Vec3d;
 public class FlightDetector {
     private final ViolationManager violationManager;
     private final ModConfig config;
+    private final PlayerDataManager playerDataManager;
+    private final DetectorClock clock;
+    // Reused by the standalone check, which runs outside the registry's per-tick snapshots
+    private final PlayerTickSnapshot polledSnapshot = new PlayerTickSnapshot();
     
     /**
      * Create a new flight detector.
      * @param violationManager The violation manager
      * @param config The mod configuration
+     * @param playerDataManager The player data manager
+     * @param clock The detector clock
      */
-    public FlightDetector(ViolationManager violationManager, ModConfig config) {
+    public FlightDetector(ViolationManager violationManager, ModConfig config, PlayerDataManager playerDataManager, DetectorClock clock) {
         this.violationManager = violationManager;
         this.config = config;
+        this.playerDataManager = playerDataManager;
+        this.clock = clock;
     }
     
     /**
@@ -30,129 +40,128 @@ public class FlightDetector {
      * @param player The player to check
      */
     public void check(ServerPlayerEntity player) {
+        PlayerDataManager.PlayerData data = playerDataManager.getPlayerData(player);
+        polledSnapshot.fill(player);
+        PlayerSample sample = PlayerSample.capture(polledSnapshot, clock.getMillis());
+        evaluate(data, sample);
+        data.setLastPosition(sample.x(), sample.y(), sample.z(), sample.time());
+    }
+    
+    /**
+     * Run the flight checks on a captured sample.
+     * Players without a reason to be airborne, like an elytra or levitation,
+     * who stay level or rise for longer than the allowed air time count as flying.
+     * @param data The player's data
+     * @param sample The player's state at the time of the check
+     */
+    public void evaluate(PlayerDataManager.PlayerData data, PlayerSample sample) {
         // Skip players in creative or spectator mode
-        if (player.isCreative() || player.isSpectator()) {
+        if (sample.creativeOrSpectator()) {
             return;
         }
         
         // Skip if player is allowed to fly
-        if (player.getAbilities().allowFlying) {
+        if (sample.allowFlying()) {
             return;
         }
         
         // Skip if player is riding an entity
-        if (player.hasVehicle()) {
+        if (sample.riding()) {
             return;
         }
         
         // Skip if player is using an elytra
-        if (player.isFallFlying()) {
+        if (sample.fallFlying()) {
             return;
         }
         
         // Skip if player has levitation effect
-        if (player.hasStatusEffect(StatusEffects.LEVITATION)) {
+        if (sample.levitationLevel() > 0) {
             return;
         }
         
         // Skip if player has slow falling effect
-        if (player.hasStatusEffect(StatusEffects.SLOW_FALLING)) {
+        if (sample.slowFallingLevel() > 0) {
             return;
         }
         
-        PlayerDataManager.PlayerData data = CheatDetector.getInstance().getPlayerDataManager().getPlayerData(player);
-        Vec3d currentPos = player.getPos();
-        long currentTime = System.currentTimeMillis();
+        long currentTime = sample.time();
         
         // Skip if this is the first position update or if player recently teleported
-        if (data.getLastPosition() == null || 
+        if (!data.hasLastPosition() || 
                 currentTime - data.getLastTeleportTime() < 2000) {
-            data.setLastPosition(currentPos, currentTime);
-            data.setGroundState(player.isOnGround(), currentTime);
+            data.setGroundState(sample.onGround(), currentTime);
             return;
         }
         
         // Update ground state
-        data.setGroundState(player.isOnGround(), currentTime);
+        data.setGroundState(sample.onGround(), currentTime);
         
-        // Calculate time delta in seconds
-        double timeDelta = (currentTime - data.getLastPositionTime()) / 1000.0;
+        // Calculate time delta in seconds, over the client ticks moved when known
+        double timeDelta = sample.elapsedSeconds(data.getLastPositionTime(), data.getClientAheadMillis());
         
         // Skip if time delta is too small or too large
         if (timeDelta < 0.05 || timeDelta > 1.0) {
-            data.setLastPosition(currentPos, currentTime);
             return;
         }
         
         // Check for prolonged air time without falling
-        if (!player.isOnGround()) {
+        if (!sample.onGround()) {
             long airTime = data.getAirTime();
             
             // Check for rising while in air for too long
             if (airTime > config.getMaxAirTime() * 1000) { // Convert to milliseconds
-                Vec3d lastPos = data.getLastPosition();
+                double lastY = data.getLastY();
                 
                 // Check if player is staying level or rising while in air
-                if (currentPos.y >= lastPos.y) {
+                if (sample.y() >= lastY) {
                     // Calculate vertical velocity
-                    double verticalVelocity = (currentPos.y - lastPos.y) / timeDelta;
+                    double verticalVelocity = (sample.y() - lastY) / timeDelta;
                     
                     // Player is moving up while in air for too long - potential flight
                     if (verticalVelocity >= 0) {
                         // Increase violation level
-                        data.increaseFlightViolationLevel();
+                        data.increaseViolationLevel(CheckType.FLIGHT, currentTime);
                         
-                        if (data.getFlightViolationLevel() >= config.getMaxFlightViolationsBeforeAction()) {
+                        if (data.getViolationLevel(CheckType.FLIGHT, currentTime) >= config.getMaxFlightViolationsBeforeAction()) {
                             // Log violation
-                            violationManager.logViolation(player, "FlightHack", 
-                                    String.format("Airtime: %.1fs, Vertical velocity: %.2f blocks/s", 
-                                            airTime / 1000.0, verticalVelocity));
+                            violationManager.logViolation(data.getUuid(), data.getPlayerName(), ViolationType.FLIGHT_HACK, 
+                                    "Airtime: %2$.1fs, Vertical velocity: %1$.2f blocks/s", 
+                                    verticalVelocity, airTime / 1000.0);
                             
                             // Take action
-                            violationManager.handleFlyHackViolation(player, verticalVelocity, lastPos);
+                            violationManager.handleFlyHackViolation(data.getUuid(), verticalVelocity, data.getLastPosition());
                             
                             // Reset violation level after taking action
-                            for (int i = 0; i < 3; i++) {
-                                data.decreaseFlightViolationLevel();
-                            }
+                            data.decreaseViolationLevel(CheckType.FLIGHT, 3, currentTime);
                         }
                     }
                 } else {
                     // Player is falling, which is expected
                     // Check if they're falling too slowly though
-                    double verticalVelocity = (currentPos.y - lastPos.y) / timeDelta;
+                    double verticalVelocity = (sample.y() - lastY) / timeDelta;
                     
                     // In Minecraft, gravity is about -0.08 blocks per tick, or roughly -1.6 blocks/s
                     // If falling is much slower than that, it could be a slow-fall hack
                     if (verticalVelocity > -0.5 && airTime > 1500) { // More than 1.5 seconds in air
                         // Increase violation level
-                        data.increaseFlightViolationLevel();
+                        data.increaseViolationLevel(CheckType.FLIGHT, currentTime);
                         
-                        if (data.getFlightViolationLevel() >= config.getMaxFlightViolationsBeforeAction()) {
+                        if (data.getViolationLevel(CheckType.FLIGHT, currentTime) >= config.getMaxFlightViolationsBeforeAction()) {
                             // Log violation
-                            violationManager.logViolation(player, "SlowFallHack", 
-                                    String.format("Airtime: %.1fs, Fall velocity: %.2f blocks/s", 
-                                            airTime / 1000.0, verticalVelocity));
+                            violationManager.logViolation(data.getUuid(), data.getPlayerName(), ViolationType.SLOW_FALL_HACK, 
+                                    "Airtime: %2$.1fs, Fall velocity: %1$.2f blocks/s", 
+                                    verticalVelocity, airTime / 1000.0);
                             
                             // Take action
-                            violationManager.handleFlyHackViolation(player, verticalVelocity, lastPos);
+                            violationManager.handleFlyHackViolation(data.getUuid(), verticalVelocity, data.getLastPosition());
                             
                             // Reset violation level after taking action
-                            for (int i = 0; i < 3; i++) {
-                                data.decreaseFlightViolationLevel();
-                            }
+                            data.decreaseViolationLevel(CheckType.FLIGHT, 3, currentTime);
                         }
                     }
                 }
             }
-        } else {
-            // Player is on ground, decrease violation level over time
-            if (currentTime - data.getLastFlightViolationTime() > 10000) { // 10 seconds
-                data.decreaseFlightViolationLevel();
-            }
         }
-        
-        // Update last position
-        data.setLastPosition(currentPos, currentTime);
     }
 } 
\ No newline at end of file
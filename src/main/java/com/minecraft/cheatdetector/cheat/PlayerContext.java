@@ -0,0 +1,164 @@
+package com.minecraft.cheatdetector.cheat;
+
+import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.data.PlayerTickSnapshot;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.Arrays;
+
+/**
+ * What the detectors share about one player during a tick: the player entity,
+ * their data, a snapshot of the entity state and the states detectors guard
+ * against, all read from the entity once per tick.
+ * Also numbers every input change in order and remembers the last change each
+ * detector saw, so unchanged players are not checked again. Only used on the
+ * server thread.
+ */
+public class PlayerContext {
+    public static final int STATE_CREATIVE = 1;
+    public static final int STATE_SPECTATOR = 1 << 1;
+    public static final int STATE_RIDING = 1 << 2;
+    public static final int STATE_FLIGHT_ALLOWED = 1 << 3;
+    public static final int STATE_FALL_FLYING = 1 << 4;
+    public static final int STATE_BYPASS = 1 << 5;
+    
+    private ServerPlayerEntity player;
+    private PlayerDataManager.PlayerData data;
+    private final PlayerTickSnapshot snapshot;
+    private int states;
+    private long preparedTick = Long.MIN_VALUE;
+    
+    // Sequence number of the latest input change; numbers only order changes, unlike ticks,
+    // which cannot tell a change after a detector ran in the same tick from one before
+    private long changeSequence;
+    // Sequence number of each input's latest change, by input ordinal
+    private final long[] inputChangeSequences = new long[DetectorInput.values().length];
+    // Latest change sequence number each detector saw, by registration index
+    private long[] checkedSequences;
+    // Bit set of the registration indices of the event-driven detectors the player is queued for
+    private long queuedDetectors;
+    
+    PlayerContext(ServerPlayerEntity player, PlayerDataManager.PlayerData data, PlayerTickSnapshot snapshot,
+                  int detectorCount) {
+        this.player = player;
+        this.data = data;
+        this.snapshot = snapshot;
+        this.checkedSequences = new long[detectorCount];
+    }
+    
+    /**
+     * Read the player's state for a tick.
+     * @param player The player entity, which is replaced on respawn
+     * @param tick The current tick
+     * @param bypassPermissionLevel The permission level that exempts players from all checks
+     */
+    void prepare(ServerPlayerEntity player, long tick, int bypassPermissionLevel) {
+        this.player = player;
+        this.preparedTick = tick;
+        snapshot.fill(player);
+        
+        int states = 0;
+        if (snapshot.isCreative()) {
+            states |= STATE_CREATIVE;
+        }
+        if (snapshot.isSpectator()) {
+            states |= STATE_SPECTATOR;
+        }
+        if (snapshot.isRiding()) {
+            states |= STATE_RIDING;
+        }
+        if (snapshot.isAllowFlying()) {
+            states |= STATE_FLIGHT_ALLOWED;
+        }
+        if (snapshot.isFallFlying()) {
+            states |= STATE_FALL_FLYING;
+        }
+        if (player.hasPermissionLevel(bypassPermissionLevel)) {
+            states |= STATE_BYPASS;
+        }
+        this.states = states;
+    }
+    
+    boolean isPreparedFor(ServerPlayerEntity player, long tick) {
+        return preparedTick == tick && this.player == player;
+    }
+    
+    void markInputChanged(DetectorInput input) {
+        inputChangeSequences[input.ordinal()] = ++changeSequence;
+    }
+    
+    /**
+     * Check whether any of the given inputs changed since a detector last ran.
+     * @param inputMask A mask with the bit of each input ordinal set
+     * @param detectorIndex The registration index of the detector
+     */
+    boolean hasChangedSince(int inputMask, int detectorIndex) {
+        long checked = detectorIndex < checkedSequences.length ? checkedSequences[detectorIndex] : 0;
+        for (int input = 0; input < inputChangeSequences.length; input++) {
+            if ((inputMask & 1 << input) != 0 && inputChangeSequences[input] > checked) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Note that a detector ran, and so saw every input change so far.
+     * @param detectorIndex The registration index of the detector
+     */
+    void markChecked(int detectorIndex) {
+        if (detectorIndex >= checkedSequences.length) {
+            checkedSequences = Arrays.copyOf(checkedSequences, detectorIndex + 1);
+        }
+        checkedSequences[detectorIndex] = changeSequence;
+    }
+    
+    /**
+     * Note that the player was queued for a detector.
+     * @param detectorIndex The registration index of the detector
+     * @return false if the player was queued for it already
+     */
+    boolean markQueued(int detectorIndex) {
+        long bit = 1L << detectorIndex;
+        boolean queued = (queuedDetectors & bit) != 0;
+        queuedDetectors |= bit;
+        return !queued;
+    }
+    
+    void clearQueued(int detectorIndex) {
+        queuedDetectors &= ~(1L << detectorIndex);
+    }
+    
+    /**
+     * Get the player entity.
+     * @return The player
+     */
+    public ServerPlayerEntity getPlayer() {
+        return player;
+    }
+    
+    /**
+     * Get the player's data.
+     * @return The player data
+     */
+    public PlayerDataManager.PlayerData getData() {
+        return data;
+    }
+    
+    /**
+     * Get the player's entity state as read at the start of this tick's checks.
+     * @return The snapshot, reused every tick
+     */
+    public PlayerTickSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Check whether the player is in any of the given states this tick.
+     * @param mask A mask of state flags
+     * @return Whether any of the states apply
+     */
+    public boolean hasAnyState(int mask) {
+        return (states & mask) != 0;
+    }
+}
@@ -1,14 +1,17 @@
 package com.minecraft.cheatdetector.cheat;
 
-import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.analysis.PlayerSample;
+import com.minecraft.cheatdetector.analysis.PopulationBaselines;
 import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.CheckType;
+import com.minecraft.cheatdetector.data.DoubleRingBuffer;
 import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.data.PlayerTickSnapshot;
+import com.minecraft.cheatdetector.data.Vec3RingBuffer;
 import com.minecraft.cheatdetector.report.ViolationManager;
-import net.minecraft.entity.effect.StatusEffects;
+import com.minecraft.cheatdetector.report.ViolationType;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.util.math.Vec3d;
-
-import java.util.List;
 
 /**
  * Detects speed hacks by monitoring player movement patterns.
@@ -16,15 +19,26 @@ import java.util.List;
 public class SpeedHackDetector {
     private final ViolationManager violationManager;
     private final ModConfig config;
+    private final PlayerDataManager playerDataManager;
+    private final DetectorClock clock;
+    private final PopulationBaselines populationBaselines;
+    // Reused by the standalone check, which runs outside the registry's per-tick snapshots
+    private final PlayerTickSnapshot polledSnapshot = new PlayerTickSnapshot();
     
     /**
      * Create a new speed hack detector.
      * @param violationManager The violation manager
      * @param config The mod configuration
+     * @param playerDataManager The player data manager
+     * @param clock The detector clock
+     * @param populationBaselines The server-wide speed distribution
      */
-    public SpeedHackDetector(ViolationManager violationManager, ModConfig config) {
+    public SpeedHackDetector(ViolationManager violationManager, ModConfig config, PlayerDataManager playerDataManager, DetectorClock clock, PopulationBaselines populationBaselines) {
         this.violationManager = violationManager;
         this.config = config;
+        this.playerDataManager = playerDataManager;
+        this.clock = clock;
+        this.populationBaselines = populationBaselines;
     }
     
     /**
@@ -33,110 +47,108 @@ public class SpeedHackDetector {
      * @param player The player to check
      */
     public void check(ServerPlayerEntity player) {
+        PlayerDataManager.PlayerData data = playerDataManager.getPlayerData(player);
+        polledSnapshot.fill(player);
+        PlayerSample sample = PlayerSample.capture(polledSnapshot, clock.getMillis());
+        evaluate(data, sample);
+        data.setLastPosition(sample.x(), sample.y(), sample.z(), sample.time());
+    }
+    
+    /**
+     * Run the speed checks on a captured sample.
+     * The horizontal distance from the player's last position is divided by the
+     * time moved, and a sustained average above the limit for the player's
+     * effects and sprinting counts as a violation.
+     * 
+     * @param data The player's data
+     * @param sample The player's state at the time of the check
+     */
+    public void evaluate(PlayerDataManager.PlayerData data, PlayerSample sample) {
         // Skip players in creative/spectator mode
-        if (player.isCreative() || player.isSpectator()) {
+        if (sample.creativeOrSpectator()) {
             return;
         }
         
         // Skip if player is riding an entity
-        if (player.hasVehicle()) {
+        if (sample.riding()) {
             return;
         }
         
-        PlayerDataManager.PlayerData data = CheatDetector.getInstance().getPlayerDataManager().getPlayerData(player);
-        
-        // Record current position
-        Vec3d currentPos = player.getPos();
-        long currentTime = System.currentTimeMillis();
+        long currentTime = sample.time();
         
         // Skip if this is the first position record or if too much time has passed
         if (data.getLastPositionTime() == 0 || currentTime - data.getLastPositionTime() > 1000) {
-            data.setLastPosition(currentPos);
-            data.setLastPositionTime(currentTime);
             return;
         }
         
-        // Calculate speed in blocks per second
-        Vec3d lastPos = data.getLastPosition();
-        double timeDelta = (currentTime - data.getLastPositionTime()) / 1000.0; // convert to seconds
+        // Calculate speed in blocks per second, over the client ticks moved when known
+        double timeDelta = sample.elapsedSeconds(data.getLastPositionTime(), data.getClientAheadMillis());
+        if (timeDelta <= 0) {
+            return;
+        }
         
         // Horizontal speed calculation (ignoring Y axis)
-        Vec3d horizontalMovement = new Vec3d(
-                currentPos.x - lastPos.x,
-                0,
-                currentPos.z - lastPos.z
-        );
-        
-        double horizontalSpeed = horizontalMovement.length() / timeDelta;
-        
-        // Update position data
-        data.setLastPosition(currentPos);
-        data.setLastPositionTime(currentTime);
+        double dx = sample.x() - data.getLastX();
+        double dz = sample.z() - data.getLastZ();
+        double horizontalSpeed = Math.sqrt(dx * dx + dz * dz) / timeDelta;
         
         // Record speed for pattern analysis
         data.addMovementSpeed(horizontalSpeed);
         
         // Calculate expected maximum speed based on game mechanics
-        double maxSpeed = calculateMaxAllowedSpeed(player);
+        double baseSpeed = calculateBaseSpeed(sample);
+        
+        // Add this movement to the server-wide distribution, leaving out standing still
+        if (horizontalSpeed > 0.5) {
+            populationBaselines.recordSpeedRatio(data.getUuid(), horizontalSpeed / baseSpeed);
+        }
+        double maxSpeed = baseSpeed * getSpeedTolerance();
         
-        // Check for speed violations
+        // Check for speed violations; the level decays by itself during normal movement
         if (horizontalSpeed > maxSpeed) {
             // Not an immediate violation - check for sustained speed
-            checkSustainedSpeedViolation(player, data, horizontalSpeed, maxSpeed);
-        } else {
-            // Gradually decrease violation level for normal movement
-            if (currentTime - data.getLastSpeedViolationTime() > 10000) { // 10 seconds
-                data.decreaseSpeedViolationLevel();
-            }
+            checkSustainedSpeedViolation(data, maxSpeed, currentTime);
         }
         
         // Check for irregular movement patterns (teleportation/flying)
-        checkIrregularMovement(player, data);
+        checkIrregularMovement(data, sample);
     }
     
     /**
      * Check if a player is consistently moving faster than allowed.
+     * The average comes from the running sum of the speed buffer.
      * 
-     * @param player The player to check
      * @param data The player's data
-     * @param currentSpeed The current speed
      * @param maxAllowedSpeed The maximum allowed speed
+     * @param time The time of the check in milliseconds
      */
-    private void checkSustainedSpeedViolation(ServerPlayerEntity player, PlayerDataManager.PlayerData data, 
-                                             double currentSpeed, double maxAllowedSpeed) {
-        List<Double> speeds = data.getRecentMovementSpeeds();
+    private void checkSustainedSpeedViolation(PlayerDataManager.PlayerData data, double maxAllowedSpeed, long time) {
+        DoubleRingBuffer speeds = data.getRecentMovementSpeeds();
         
         // Only check for violations if we have enough data
-        if (speeds.size() >= 5) {
-            // Calculate average speed over recent movements
-            double avgSpeed = speeds.stream().mapToDouble(Double::doubleValue).average().orElse(0);
-            
-            // Calculate how much the speed exceeds the allowed limit (as a percentage)
-            double overSpeedPercentage = ((avgSpeed / maxAllowedSpeed) - 1.0) * 100;
+        if (speeds.size() < 5) {
+            return;
+        }
+        
+        double avgSpeed = speeds.mean();
+        
+        // Calculate how much the speed exceeds the allowed limit (as a percentage)
+        double overSpeedPercentage = ((avgSpeed / maxAllowedSpeed) - 1.0) * 100;
+        
+        // If average speed is consistently above the limit by a significant margin
+        if (avgSpeed > maxAllowedSpeed && overSpeedPercentage > 10) {
+            data.increaseViolationLevel(CheckType.SPEED, time);
             
-            // If average speed is consistently above the limit by a significant margin
-            if (avgSpeed > maxAllowedSpeed && overSpeedPercentage > 10) {
-                data.increaseSpeedViolationLevel();
-                data.setLastSpeedViolationTime(System.currentTimeMillis());
+            if (data.getViolationLevel(CheckType.SPEED, time) >= config.getMaxSpeedViolationsBeforeAction()) {
+                violationManager.logViolation(data.getUuid(), data.getPlayerName(), ViolationType.SPEED_HACK, 
+                        "Moving at %.2f blocks/s (%.2f%% over limit)", 
+                        avgSpeed, overSpeedPercentage);
                 
-                if (data.getSpeedViolationLevel() >= config.getMaxSpeedViolationsBeforeAction()) {
-                    violationManager.logViolation(player, "SpeedHack", 
-                            String.format("Moving at %.2f blocks/s (%.2f%% over limit)", 
-                                    avgSpeed, overSpeedPercentage));
-                    
-                    // Handle the violation
-                    violationManager.handleSpeedViolation(player, avgSpeed);
-                    
-                    // Reset violation level after taking action
-                    for (int i = 0; i < 3; i++) {
-                        data.decreaseSpeedViolationLevel();
-                    }
-                }
-            }
-            
-            // Trim the list to prevent it from growing too large
-            while (speeds.size() > 20) {
-                speeds.remove(0);
+                // Handle the violation
+                violationManager.handleSpeedViolation(data.getUuid(), avgSpeed);
+                
+                // Reset violation level after taking action
+                data.decreaseViolationLevel(CheckType.SPEED, 3, time);
             }
         }
     }
@@ -144,20 +156,14 @@ public class SpeedHackDetector {
     /**
      * Check for irregular movement patterns that might indicate teleportation or flying.
      * 
-     * @param player The player to check
      * @param data The player's data
+     * @param sample The player's state at the time of the check
      */
-    private void checkIrregularMovement(ServerPlayerEntity player, PlayerDataManager.PlayerData data) {
-        Vec3d currentPos = player.getPos();
-        List<Vec3d> positionHistory = data.getPositionHistory();
+    private void checkIrregularMovement(PlayerDataManager.PlayerData data, PlayerSample sample) {
+        Vec3RingBuffer positionHistory = data.getPositionHistory();
         
-        // Add current position to history
-        positionHistory.add(currentPos);
-        
-        // Trim history to keep only recent positions
-        while (positionHistory.size() > 10) {
-            positionHistory.remove(0);
-        }
+        // Add current position to history, evicting the oldest one
+        positionHistory.add(sample.x(), sample.y(), sample.z());
         
         // Need at least 3 positions to check for irregular movement
         if (positionHistory.size() < 3) {
@@ -165,64 +171,68 @@ public class SpeedHackDetector {
         }
         
         // Check for vertical movement inconsistencies (flying)
-        if (!player.abilities.allowFlying && !player.isOnGround() && !player.isTouchingWater()) {
-            Vec3d prevPos = positionHistory.get(positionHistory.size() - 2);
+        if (!sample.allowFlying() && !sample.onGround() && !sample.touchingWater()) {
+            double prevY = positionHistory.getY(positionHistory.size() - 2);
             
             // If player is moving upward while in the air
-            if (currentPos.y > prevPos.y && player.getVelocity().y > 0 && !player.hasStatusEffect(StatusEffects.JUMP_BOOST)) {
-                data.increaseIrregularMovementViolations();
+            if (sample.y() > prevY && sample.velocityY() > 0 && sample.jumpBoostLevel() == 0) {
+                data.increaseViolationLevel(CheckType.IRREGULAR_MOVEMENT, sample.time());
                 
-                if (data.getIrregularMovementViolations() >= config.getMaxFlyViolationsBeforeAction()) {
-                    violationManager.logViolation(player, "FlyHack", 
-                            String.format("Irregular vertical movement detected (y-vel: %.2f)", player.getVelocity().y));
+                if (data.getViolationLevel(CheckType.IRREGULAR_MOVEMENT, sample.time()) >= config.getMaxFlyViolationsBeforeAction()) {
+                    violationManager.logViolation(data.getUuid(), data.getPlayerName(), ViolationType.FLY_HACK, 
+                            "Irregular vertical movement detected (y-vel: %.2f)", sample.velocityY());
                     
                     // Handle the violation
-                    violationManager.handleFlyViolation(player);
+                    violationManager.handleFlyViolation(data.getUuid());
                     
                     // Reset violation level after taking action
-                    for (int i = 0; i < 3; i++) {
-                        data.decreaseIrregularMovementViolations();
-                    }
+                    data.decreaseViolationLevel(CheckType.IRREGULAR_MOVEMENT, 3, sample.time());
                 }
             }
-        } else {
-            // Gradually decrease violations when on ground
-            if (player.isOnGround() && data.getLastIrregularMovementViolationTime() > 10000) {
-                data.decreaseIrregularMovementViolations();
-            }
         }
     }
     
     /**
-     * Calculate the maximum allowed speed for a player based on their current status effects.
+     * Calculate the speed a player can legitimately reach based on their current status effects.
      * 
-     * @param player The player
-     * @return The maximum allowed speed in blocks per second
+     * @param sample The captured player state
+     * @return The base speed in blocks per second
      */
-    private double calculateMaxAllowedSpeed(ServerPlayerEntity player) {
+    private double calculateBaseSpeed(PlayerSample sample) {
         // Base walking speed in Minecraft is about 4.3 blocks per second
         double baseSpeed = 4.3;
         
         // Add speed boost from effects
-        if (player.hasStatusEffect(StatusEffects.SPEED)) {
-            int amplifier = player.getStatusEffect(StatusEffects.SPEED).getAmplifier() + 1;
-            baseSpeed *= (1.0 + 0.2 * amplifier);
+        if (sample.speedLevel() > 0) {
+            baseSpeed *= (1.0 + 0.2 * sample.speedLevel());
         }
         
         // Reduce speed for slowness effect
-        if (player.hasStatusEffect(StatusEffects.SLOWNESS)) {
-            int amplifier = player.getStatusEffect(StatusEffects.SLOWNESS).getAmplifier() + 1;
-            baseSpeed *= (1.0 - 0.15 * amplifier);
+        if (sample.slownessLevel() > 0) {
+            baseSpeed *= (1.0 - 0.15 * sample.slownessLevel());
         }
         
         // Add speed for sprinting
-        if (player.isSprinting()) {
+        if (sample.sprinting()) {
             baseSpeed *= 1.3;
         }
         
-        // Add a tolerance factor to account for server lag and other factors
-        double tolerance = config.getSpeedHackTolerance(); // e.g. 1.2 for 20% tolerance
-        
-        return baseSpeed * tolerance;
+        return baseSpeed;
+    }
+    
+    /**
+     * Get the factor by which players may exceed their base speed.
+     * The configured tolerance accounts for server lag, sprint-jumping and
+     * other factors; once the live population's baseline is established, the
+     * limit follows it where the population legitimately moves faster.
+     * 
+     * @return The tolerance factor
+     */
+    private double getSpeedTolerance() {
+        double populationLimit = populationBaselines.getSpeedRatioLimit();
+        if (Double.isNaN(populationLimit)) {
+            return config.getSpeedHackTolerance(); // e.g. 1.2 for 20% tolerance
+        }
+        return Math.max(config.getSpeedHackTolerance(), populationLimit);
     }
-} 
\ No newline at end of file
+}
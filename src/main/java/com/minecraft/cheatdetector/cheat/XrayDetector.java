@@ -1,109 +1,239 @@
 package com.minecraft.cheatdetector.cheat;
 
-import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.analysis.PopulationBaselines;
 import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.BlockClassifier;
+import com.minecraft.cheatdetector.data.CheckType;
+import com.minecraft.cheatdetector.data.MiningTrail;
+import com.minecraft.cheatdetector.data.OreExposureCache;
 import com.minecraft.cheatdetector.data.PlayerDataManager;
 import com.minecraft.cheatdetector.report.ViolationManager;
+import com.minecraft.cheatdetector.report.ViolationType;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Detects X-ray cheats by analyzing player mining patterns.
+ * Only players who broke blocks since their last check are evaluated, in
+ * batches at the configured interval; the violation level decays with the
+ * time since its last violation rather than on each check.
  */
-public class XrayDetector {
+public class XrayDetector implements Detector {
+    private static final Set<DetectorInput> INPUTS = EnumSet.of(DetectorInput.MINING);
+    
+    // A tunnel is the blocks mined within this window, at least this many and this long
+    private static final long TUNNEL_WINDOW_MILLIS = 30000;
+    private static final int MIN_TUNNEL_BLOCKS = 4;
+    private static final double MIN_TUNNEL_LENGTH = 3.0;
+    // An ore is in the tunnel's way when it lies this far beyond its head and this close to its axis
+    private static final double MIN_DISTANCE_BEYOND_HEAD = 0.5;
+    private static final double MAX_DISTANCE_FROM_AXIS = 1.5;
+    
     private final ViolationManager violationManager;
     private final ModConfig config;
+    private final DetectorClock clock;
+    private final OreExposureCache oreExposureCache;
+    private final PopulationBaselines populationBaselines;
     
     /**
      * Create a new X-ray detector.
      * @param violationManager The violation manager
      * @param config The mod configuration
+     * @param clock The detector clock
+     * @param oreExposureCache The cache telling which blocks have an open face
+     * @param populationBaselines The server-wide ore ratio distribution
      */
-    public XrayDetector(ViolationManager violationManager, ModConfig config) {
+    public XrayDetector(ViolationManager violationManager, ModConfig config, DetectorClock clock, OreExposureCache oreExposureCache, PopulationBaselines populationBaselines) {
         this.violationManager = violationManager;
         this.config = config;
+        this.clock = clock;
+        this.oreExposureCache = oreExposureCache;
+        this.populationBaselines = populationBaselines;
+    }
+    
+    @Override
+    public String getName() {
+        return "XRay";
+    }
+    
+    @Override
+    public Set<DetectorInput> getInputs() {
+        return INPUTS;
+    }
+    
+    @Override
+    public int getIntervalTicks() {
+        return config.getXrayCheckIntervalTicks();
+    }
+    
+    @Override
+    public int getSkippedStates() {
+        // Players in creative or spectator mode break blocks without mining
+        return PlayerContext.STATE_CREATIVE | PlayerContext.STATE_SPECTATOR;
     }
     
     /**
      * Check a player for X-ray cheats.
-     * @param player The player to check
+     * @param context The player to check
      */
-    public void check(ServerPlayerEntity player) {
-        // Skip players in creative or spectator mode
-        if (player.isCreative() || player.isSpectator()) {
-            return;
-        }
-        
-        PlayerDataManager.PlayerData data = CheatDetector.getInstance().getPlayerDataManager().getPlayerData(player);
+    @Override
+    public void check(PlayerContext context) {
+        ServerPlayerEntity player = context.getPlayer();
+        PlayerDataManager.PlayerData data = context.getData();
         
         // Check diamond to stone ratio if player has mined enough blocks
         int diamondsMined = data.getDiamondsMined();
         int stoneMined = data.getStoneMined();
         
         // Only check players who have mined a reasonable number of blocks
-        if (diamondsMined > 0 && stoneMined > 20) {
+        if (stoneMined > 20) {
             double ratio = (double) diamondsMined / stoneMined;
-            double suspiciousRatio = config.getXrayDiamondRatioThreshold();
+            
+            // Every miner counts towards the server-wide distribution, including those without finds
+            populationBaselines.recordOreRatio(player.getUuid(), ratio);
+            double populationLimit = populationBaselines.getOreRatioLimit();
+            // The population may only raise the configured threshold, never lower it
+            double suspiciousRatio = Double.isNaN(populationLimit)
+                    ? config.getXrayDiamondRatioThreshold()
+                    : Math.max(config.getXrayDiamondRatioThreshold(), populationLimit);
             
             // If diamond rate is suspiciously high
-            if (ratio > suspiciousRatio) {
+            if (diamondsMined > 0 && ratio > suspiciousRatio) {
                 // Increase violation level
-                data.increaseXrayViolationLevel();
+                data.increaseViolationLevel(CheckType.XRAY, clock.getMillis());
                 
-                if (data.getXrayViolationLevel() >= config.getMaxXrayViolationsBeforeAction()) {
+                if (data.getViolationLevel(CheckType.XRAY, clock.getMillis()) >= config.getMaxXrayViolationsBeforeAction()) {
                     // Log violation with precise information
-                    violationManager.logViolation(player, "XRay", 
-                            String.format("Diamond/Stone ratio: %.4f (threshold: %.4f), Diamonds: %d, Stone: %d", 
-                                    ratio, suspiciousRatio, diamondsMined, stoneMined));
+                    violationManager.logViolation(player, ViolationType.XRAY, 
+                            "Diamond/Stone ratio: %.4f (threshold: %.4f), Diamonds: %.0f, Stone: %.0f", 
+                            ratio, suspiciousRatio, diamondsMined, stoneMined);
                     
                     // Take action
-                    violationManager.handleXrayViolation(player, ratio);
+                    violationManager.handleXrayViolation(player.getUuid(), ratio);
                     
                     // Reset violation level after taking action
-                    for (int i = 0; i < 3; i++) {
-                        data.decreaseXrayViolationLevel();
-                    }
-                }
-            } else {
-                // Decrease violation level if ratio is normal and it's been a while
-                long currentTime = System.currentTimeMillis();
-                if (currentTime - data.getLastXrayViolationTime() > 10000) { // 10 seconds
-                    data.decreaseXrayViolationLevel();
+                    data.decreaseViolationLevel(CheckType.XRAY, 3, clock.getMillis());
                 }
             }
         }
         
-        // Additional X-ray detection logic can be added here:
-        // 1. Check for targeting specific blocks behind walls
-        // 2. Check for unusual mining patterns
-        // 3. Check for excessive rare ore finding
-        
         // Check for unusual ore discovery patterns
         checkOreDiscoveryPatterns(player, data);
     }
     
+    /**
+     * Record a mined block: whether a valuable ore was visible before the player
+     * dug up to it, and whether the player's tunnel led straight to it.
+     * Ores in the walls of the player's own tunnel were in plain sight of it, so
+     * they count as exposed; only an ore at the head of the tunnel was hidden.
+     * @param data The data of the player who mined the block
+     * @param world The world the block was in
+     * @param pos The position of the block
+     * @param category The block's category from the block classifier
+     */
+    public void onBlockMined(PlayerDataManager.PlayerData data, ServerWorld world, BlockPos pos, byte category) {
+        MiningTrail trail = data.getMiningTrail();
+        long time = clock.getMillis();
+        
+        if (category == BlockClassifier.VALUABLE_ORE) {
+            int x = pos.getX();
+            int y = pos.getY();
+            int z = pos.getZ();
+            boolean openFace = oreExposureCache.isExposed(world, pos, trail);
+            boolean tunnelled = !openFace && isTunnelTowards(trail, x, y, z, time);
+            boolean exposed = openFace || (!tunnelled && trail.touches(x, y, z));
+            data.recordOreDiscovery(exposed, tunnelled);
+        }
+        
+        trail.add(pos.getX(), pos.getY(), pos.getZ(), time);
+    }
+    
+    /**
+     * Check whether the blocks mined recently form a straight tunnel leading on to a block.
+     * The block has to lie beyond the tunnel's head and close to its axis, so blocks
+     * in the walls beside the head do not count.
+     * @param trail The recently mined blocks
+     * @param x The x coordinate of the block the tunnel may lead to
+     * @param y The y coordinate of the block the tunnel may lead to
+     * @param z The z coordinate of the block the tunnel may lead to
+     * @param time The current time in milliseconds
+     * @return Whether the tunnel leads on to the block
+     */
+    static boolean isTunnelTowards(MiningTrail trail, int x, int y, int z, long time) {
+        // Walk back over the blocks mined within the time window
+        int first = trail.size();
+        while (first > 0 && time - trail.getTime(first - 1) <= TUNNEL_WINDOW_MILLIS) {
+            first--;
+        }
+        if (trail.size() - first < MIN_TUNNEL_BLOCKS) {
+            return false;
+        }
+        
+        int last = trail.size() - 1;
+        double tunnelX = trail.getX(last) - trail.getX(first);
+        double tunnelY = trail.getY(last) - trail.getY(first);
+        double tunnelZ = trail.getZ(last) - trail.getZ(first);
+        double tunnelLengthSquared = tunnelX * tunnelX + tunnelY * tunnelY + tunnelZ * tunnelZ;
+        if (tunnelLengthSquared < MIN_TUNNEL_LENGTH * MIN_TUNNEL_LENGTH) {
+            return false;
+        }
+        
+        // Split the offset from the head into the part along the tunnel and the part across it
+        double oreX = x - trail.getX(last);
+        double oreY = y - trail.getY(last);
+        double oreZ = z - trail.getZ(last);
+        double beyondHead = (tunnelX * oreX + tunnelY * oreY + tunnelZ * oreZ) / Math.sqrt(tunnelLengthSquared);
+        if (beyondHead < MIN_DISTANCE_BEYOND_HEAD) {
+            return false;
+        }
+        
+        double fromAxisSquared = oreX * oreX + oreY * oreY + oreZ * oreZ - beyondHead * beyondHead;
+        return fromAxisSquared <= MAX_DISTANCE_FROM_AXIS * MAX_DISTANCE_FROM_AXIS;
+    }
+    
     /**
      * Check for unusual ore discovery patterns indicating X-ray.
-     * This method analyzes the distribution of valuable ore discoveries
-     * to detect if a player is consistently finding valuable ores without
-     * mining through typical stone blocks first.
+     * Players mining legitimately find most ores on cave walls or in the sides of
+     * their tunnels, with an open face. Consistently breaking into hidden ores,
+     * and reaching them through tunnels aimed straight at them, suggests the
+     * player can see through blocks.
      * 
      * @param player The player to check
      * @param data The player's data
      */
     private void checkOreDiscoveryPatterns(ServerPlayerEntity player, PlayerDataManager.PlayerData data) {
-        // This is a more complex detection that would require tracking:
-        // 1. The sequence of blocks mined
-        // 2. The visibility of ores before they were mined
-        // 3. The player's mining direction and patterns
+        int hidden = data.getHiddenOresMined();
+        int tunnelled = data.getTunnelledOresMined();
+        int total = hidden + data.getExposedOresMined();
+        
+        // Only check players who have found enough ores
+        if (total < config.getXrayMinOresForPatternCheck()) {
+            return;
+        }
         
-        // For now, we're just using the basic diamond-to-stone ratio check
-        // A more sophisticated X-ray detection system would track:
-        // - Whether valuable blocks were visible before mining (line of sight)
-        // - Whether the player is digging directly to valuable ores
-        // - Mining efficiency (ratio of valuable blocks to total blocks mined)
-        // - Comparison to server averages
+        double hiddenRatio = (double) hidden / total;
+        double tunnelledRatio = (double) tunnelled / total;
         
-        // A full implementation would require additional events and data structures
-        // that are beyond the scope of this example
+        if (hiddenRatio > config.getXrayHiddenOreRatioThreshold() 
+                && tunnelledRatio > config.getXrayTunnelledOreRatioThreshold()) {
+            data.increaseViolationLevel(CheckType.XRAY, clock.getMillis());
+            
+            if (data.getViolationLevel(CheckType.XRAY, clock.getMillis()) >= config.getMaxXrayViolationsBeforeAction()) {
+                violationManager.logViolation(player, ViolationType.XRAY, 
+                        "Hidden ores: %2$.0f/%3$.0f (%1$.2f), tunnelled straight to: %4$.0f (%5$.2f)", 
+                        hiddenRatio, hidden, total, tunnelled, tunnelledRatio);
+                
+                // Take action
+                violationManager.handleXrayViolation(player.getUuid(), hiddenRatio);
+                
+                // Reset violation level after taking action
+                data.decreaseViolationLevel(CheckType.XRAY, 3, clock.getMillis());
+            }
+        }
     }
-} 
\ No newline at end of file
+}
@@ -23,6 +23,10 @@ public class ModConfig {
     private boolean debugMode = false;
     private int bypassPermissionLevel = 2;
     
+    // Detector scheduling
+    private long detectorTickBudgetMicros = 1000;
+    private int xrayCheckIntervalTicks = 20;
+    
     // Speed hack detection
     private double speedCheckLeniency = 1.3;
     private int maxSpeedViolationsBeforeAction = 5;
@@ -37,10 +41,12 @@ public class ModConfig {
     // X-ray detection
     private int maxXrayViolationsBeforeAction = 5;
     private double xrayDiamondRatioThreshold = 0.05;
+    private int xrayMinOresForPatternCheck = 8;
+    private double xrayHiddenOreRatioThreshold = 0.75;
+    private double xrayTunnelledOreRatioThreshold = 0.5;
     private Set<String> valuableOres = new HashSet<>(Arrays.asList(
             "minecraft:diamond_ore", 
-            "minecraft:deepslate_diamond_ore", 
-            "minecraft:ancient_debris"
+            "minecraft:deepslate_diamond_ore"
     ));
     
     // KillAura detection
@@ -48,19 +54,42 @@ public class ModConfig {
     private int maxAttacksPerSecond = 16;
     private int maxTargetsPerTimeWindow = 5;
     private double maxAttackAngle = 120.0;
+    private double killAuraMinAttackInterval = 100.0;
     
     // Reach hack detection
     private int maxReachViolationsBeforeAction = 5;
     private double maxReachDistance = 3.2;
-    
-    // NoFall detection
-    private int maxNoFallViolationsBeforeAction = 5;
+    private int lagCompensationMaxRewindTicks = 20;
+    private int lagCompensationInterpolationTicks = 3;
     
     // Reports
     private boolean enableAutoReports = true;
     private boolean saveScreenshots = true;
     private int maxViolationsPerReport = 100;
     
+    // Player profiles
+    private int profileSaveIntervalTicks = 6000;
+    
+    // Report journal
+    private int journalQueueCapacity = 8192;
+    private int journalMaxOpenFiles = 64;
+    private long journalFlushIntervalMillis = 1000;
+    private int journalFlushBatchSize = 256;
+    
+    // Performance metrics
+    private boolean perfMonitoring = true;
+    private int perfExportIntervalTicks = 1200;
+    
+    // Population baselines
+    private boolean adaptiveThresholds = true;
+    private int baselineMinSamples = 2000;
+    private int baselineMinPlayers = 20;
+    private int baselineMaxSamplesPerPlayer = 100;
+    private int baselineWindowTicks = 36000;
+    private double speedBaselinePercentile = 99.5;
+    private double xrayBaselinePercentile = 99.0;
+    private double attackRateBaselinePercentile = 99.0;
+    
     // File paths
     private static final String CONFIG_DIRECTORY = "config";
     private static final String CONFIG_FILE = "cheatdetector.json";
@@ -105,6 +134,10 @@ public class ModConfig {
             this.debugMode = loaded.debugMode;
             this.bypassPermissionLevel = loaded.bypassPermissionLevel;
             
+            // Detector scheduling
+            this.detectorTickBudgetMicros = loaded.detectorTickBudgetMicros;
+            this.xrayCheckIntervalTicks = loaded.xrayCheckIntervalTicks;
+            
             // Speed hack
             this.speedCheckLeniency = loaded.speedCheckLeniency;
             this.maxSpeedViolationsBeforeAction = loaded.maxSpeedViolationsBeforeAction;
@@ -119,6 +152,9 @@ public class ModConfig {
             // X-ray
             this.maxXrayViolationsBeforeAction = loaded.maxXrayViolationsBeforeAction;
             this.xrayDiamondRatioThreshold = loaded.xrayDiamondRatioThreshold;
+            this.xrayMinOresForPatternCheck = loaded.xrayMinOresForPatternCheck;
+            this.xrayHiddenOreRatioThreshold = loaded.xrayHiddenOreRatioThreshold;
+            this.xrayTunnelledOreRatioThreshold = loaded.xrayTunnelledOreRatioThreshold;
             this.valuableOres = loaded.valuableOres;
             
             // KillAura
@@ -126,19 +162,42 @@ public class ModConfig {
             this.maxAttacksPerSecond = loaded.maxAttacksPerSecond;
             this.maxTargetsPerTimeWindow = loaded.maxTargetsPerTimeWindow;
             this.maxAttackAngle = loaded.maxAttackAngle;
+            this.killAuraMinAttackInterval = loaded.killAuraMinAttackInterval;
             
             // Reach hack
             this.maxReachViolationsBeforeAction = loaded.maxReachViolationsBeforeAction;
             this.maxReachDistance = loaded.maxReachDistance;
-            
-            // NoFall
-            this.maxNoFallViolationsBeforeAction = loaded.maxNoFallViolationsBeforeAction;
+            this.lagCompensationMaxRewindTicks = loaded.lagCompensationMaxRewindTicks;
+            this.lagCompensationInterpolationTicks = loaded.lagCompensationInterpolationTicks;
             
             // Reports
             this.enableAutoReports = loaded.enableAutoReports;
             this.saveScreenshots = loaded.saveScreenshots;
             this.maxViolationsPerReport = loaded.maxViolationsPerReport;
             
+            // Player profiles
+            this.profileSaveIntervalTicks = loaded.profileSaveIntervalTicks;
+            
+            // Report journal
+            this.journalQueueCapacity = loaded.journalQueueCapacity;
+            this.journalMaxOpenFiles = loaded.journalMaxOpenFiles;
+            this.journalFlushIntervalMillis = loaded.journalFlushIntervalMillis;
+            this.journalFlushBatchSize = loaded.journalFlushBatchSize;
+            
+            // Performance metrics
+            this.perfMonitoring = loaded.perfMonitoring;
+            this.perfExportIntervalTicks = loaded.perfExportIntervalTicks;
+            
+            // Population baselines
+            this.adaptiveThresholds = loaded.adaptiveThresholds;
+            this.baselineMinSamples = loaded.baselineMinSamples;
+            this.baselineMinPlayers = loaded.baselineMinPlayers;
+            this.baselineMaxSamplesPerPlayer = loaded.baselineMaxSamplesPerPlayer;
+            this.baselineWindowTicks = loaded.baselineWindowTicks;
+            this.speedBaselinePercentile = loaded.speedBaselinePercentile;
+            this.xrayBaselinePercentile = loaded.xrayBaselinePercentile;
+            this.attackRateBaselinePercentile = loaded.attackRateBaselinePercentile;
+            
             CheatDetector.LOGGER.info("Configuration loaded successfully");
         } catch (Exception e) {
             CheatDetector.LOGGER.error("Failed to load configuration: " + e.getMessage());
@@ -188,6 +247,22 @@ public class ModConfig {
         this.bypassPermissionLevel = bypassPermissionLevel;
     }
     
+    public long getDetectorTickBudgetMicros() {
+        return detectorTickBudgetMicros;
+    }
+    
+    public void setDetectorTickBudgetMicros(long detectorTickBudgetMicros) {
+        this.detectorTickBudgetMicros = detectorTickBudgetMicros;
+    }
+    
+    public int getXrayCheckIntervalTicks() {
+        return xrayCheckIntervalTicks;
+    }
+    
+    public void setXrayCheckIntervalTicks(int xrayCheckIntervalTicks) {
+        this.xrayCheckIntervalTicks = xrayCheckIntervalTicks;
+    }
+    
     public double getSpeedCheckLeniency() {
         return speedCheckLeniency;
     }
@@ -260,6 +335,30 @@ public class ModConfig {
         this.xrayDiamondRatioThreshold = xrayDiamondRatioThreshold;
     }
     
+    public int getXrayMinOresForPatternCheck() {
+        return xrayMinOresForPatternCheck;
+    }
+    
+    public void setXrayMinOresForPatternCheck(int xrayMinOresForPatternCheck) {
+        this.xrayMinOresForPatternCheck = xrayMinOresForPatternCheck;
+    }
+    
+    public double getXrayHiddenOreRatioThreshold() {
+        return xrayHiddenOreRatioThreshold;
+    }
+    
+    public void setXrayHiddenOreRatioThreshold(double xrayHiddenOreRatioThreshold) {
+        this.xrayHiddenOreRatioThreshold = xrayHiddenOreRatioThreshold;
+    }
+    
+    public double getXrayTunnelledOreRatioThreshold() {
+        return xrayTunnelledOreRatioThreshold;
+    }
+    
+    public void setXrayTunnelledOreRatioThreshold(double xrayTunnelledOreRatioThreshold) {
+        this.xrayTunnelledOreRatioThreshold = xrayTunnelledOreRatioThreshold;
+    }
+    
     public Set<String> getValuableOres() {
         return valuableOres;
     }
@@ -300,6 +399,14 @@ public class ModConfig {
         this.maxAttackAngle = maxAttackAngle;
     }
     
+    public double getKillAuraMinAttackInterval() {
+        return killAuraMinAttackInterval;
+    }
+    
+    public void setKillAuraMinAttackInterval(double killAuraMinAttackInterval) {
+        this.killAuraMinAttackInterval = killAuraMinAttackInterval;
+    }
+    
     public int getMaxReachViolationsBeforeAction() {
         return maxReachViolationsBeforeAction;
     }
@@ -316,12 +423,20 @@ public class ModConfig {
         this.maxReachDistance = maxReachDistance;
     }
     
-    public int getMaxNoFallViolationsBeforeAction() {
-        return maxNoFallViolationsBeforeAction;
+    public int getLagCompensationMaxRewindTicks() {
+        return lagCompensationMaxRewindTicks;
+    }
+    
+    public void setLagCompensationMaxRewindTicks(int lagCompensationMaxRewindTicks) {
+        this.lagCompensationMaxRewindTicks = lagCompensationMaxRewindTicks;
+    }
+    
+    public int getLagCompensationInterpolationTicks() {
+        return lagCompensationInterpolationTicks;
     }
     
-    public void setMaxNoFallViolationsBeforeAction(int maxNoFallViolationsBeforeAction) {
-        this.maxNoFallViolationsBeforeAction = maxNoFallViolationsBeforeAction;
+    public void setLagCompensationInterpolationTicks(int lagCompensationInterpolationTicks) {
+        this.lagCompensationInterpolationTicks = lagCompensationInterpolationTicks;
     }
     
     public boolean isEnableAutoReports() {
@@ -348,6 +463,126 @@ public class ModConfig {
         this.maxViolationsPerReport = maxViolationsPerReport;
     }
     
+    public int getProfileSaveIntervalTicks() {
+        return profileSaveIntervalTicks;
+    }
+    
+    public void setProfileSaveIntervalTicks(int profileSaveIntervalTicks) {
+        this.profileSaveIntervalTicks = profileSaveIntervalTicks;
+    }
+    
+    public int getJournalQueueCapacity() {
+        return journalQueueCapacity;
+    }
+    
+    public void setJournalQueueCapacity(int journalQueueCapacity) {
+        this.journalQueueCapacity = journalQueueCapacity;
+    }
+    
+    public int getJournalMaxOpenFiles() {
+        return journalMaxOpenFiles;
+    }
+    
+    public void setJournalMaxOpenFiles(int journalMaxOpenFiles) {
+        this.journalMaxOpenFiles = journalMaxOpenFiles;
+    }
+    
+    public long getJournalFlushIntervalMillis() {
+        return journalFlushIntervalMillis;
+    }
+    
+    public void setJournalFlushIntervalMillis(long journalFlushIntervalMillis) {
+        this.journalFlushIntervalMillis = journalFlushIntervalMillis;
+    }
+    
+    public int getJournalFlushBatchSize() {
+        return journalFlushBatchSize;
+    }
+    
+    public void setJournalFlushBatchSize(int journalFlushBatchSize) {
+        this.journalFlushBatchSize = journalFlushBatchSize;
+    }
+    
+    public boolean isPerfMonitoring() {
+        return perfMonitoring;
+    }
+    
+    public void setPerfMonitoring(boolean perfMonitoring) {
+        this.perfMonitoring = perfMonitoring;
+    }
+    
+    public int getPerfExportIntervalTicks() {
+        return perfExportIntervalTicks;
+    }
+    
+    public void setPerfExportIntervalTicks(int perfExportIntervalTicks) {
+        this.perfExportIntervalTicks = perfExportIntervalTicks;
+    }
+    
+    public boolean isAdaptiveThresholds() {
+        return adaptiveThresholds;
+    }
+    
+    public void setAdaptiveThresholds(boolean adaptiveThresholds) {
+        this.adaptiveThresholds = adaptiveThresholds;
+    }
+    
+    public int getBaselineMinSamples() {
+        return baselineMinSamples;
+    }
+    
+    public void setBaselineMinSamples(int baselineMinSamples) {
+        this.baselineMinSamples = baselineMinSamples;
+    }
+    
+    public int getBaselineMinPlayers() {
+        return baselineMinPlayers;
+    }
+    
+    public void setBaselineMinPlayers(int baselineMinPlayers) {
+        this.baselineMinPlayers = baselineMinPlayers;
+    }
+    
+    public int getBaselineMaxSamplesPerPlayer() {
+        return baselineMaxSamplesPerPlayer;
+    }
+    
+    public void setBaselineMaxSamplesPerPlayer(int baselineMaxSamplesPerPlayer) {
+        this.baselineMaxSamplesPerPlayer = baselineMaxSamplesPerPlayer;
+    }
+    
+    public int getBaselineWindowTicks() {
+        return baselineWindowTicks;
+    }
+    
+    public void setBaselineWindowTicks(int baselineWindowTicks) {
+        this.baselineWindowTicks = baselineWindowTicks;
+    }
+    
+    public double getSpeedBaselinePercentile() {
+        return speedBaselinePercentile;
+    }
+    
+    public void setSpeedBaselinePercentile(double speedBaselinePercentile) {
+        this.speedBaselinePercentile = speedBaselinePercentile;
+    }
+    
+    public double getXrayBaselinePercentile() {
+        return xrayBaselinePercentile;
+    }
+    
+    public void setXrayBaselinePercentile(double xrayBaselinePercentile) {
+        this.xrayBaselinePercentile = xrayBaselinePercentile;
+    }
+    
+    public double getAttackRateBaselinePercentile() {
+        return attackRateBaselinePercentile;
+    }
+    
+    public void setAttackRateBaselinePercentile(double attackRateBaselinePercentile) {
+        this.attackRateBaselinePercentile = attackRateBaselinePercentile;
+    }
+    
     /**
      * Get the tolerance factor for speed hack detection.
      * Higher values allow for more leniency in speed detection.
@@ -0,0 +1,92 @@
+package com.minecraft.cheatdetector.data;
+
+/**
+ * Fixed-capacity ring buffer of recent attacks, each stored as the target's
+ * entity id, the yaw from the attacker to the target and the server tick.
+ * Once full, each new attack replaces the oldest one. Adding an attack never allocates.
+ */
+public class AttackDirectionBuffer {
+    private final int[] targetIds;
+    private final float[] yaws;
+    private final long[] ticks;
+    private int head;
+    private int size;
+    
+    /**
+     * Create an empty ring buffer.
+     * @param capacity The maximum number of attacks kept
+     */
+    public AttackDirectionBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.targetIds = new int[capacity];
+        this.yaws = new float[capacity];
+        this.ticks = new long[capacity];
+    }
+    
+    /**
+     * Add an attack, evicting the oldest one if the buffer is full.
+     * @param targetId The entity id of the target
+     * @param yaw The yaw from the attacker to the target in degrees
+     * @param tick The server tick of the attack
+     */
+    public void add(int targetId, float yaw, long tick) {
+        targetIds[head] = targetId;
+        yaws[head] = yaw;
+        ticks[head] = tick;
+        
+        head++;
+        if (head == targetIds.length) {
+            head = 0;
+        }
+        if (size < targetIds.length) {
+            size++;
+        }
+    }
+    
+    public int getTargetId(int index) {
+        return targetIds[slot(index)];
+    }
+    
+    public float getYaw(int index) {
+        return yaws[slot(index)];
+    }
+    
+    public long getTick(int index) {
+        return ticks[slot(index)];
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return targetIds.length;
+    }
+    
+    /**
+     * Remove all attacks.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+    
+    /**
+     * Map an age index to an array slot.
+     * @param index 0 for the oldest attack, size() - 1 for the newest
+     * @return The array slot
+     */
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int start = head - size;
+        if (start < 0) {
+            start += targetIds.length;
+        }
+        int slot = start + index;
+        return slot >= targetIds.length ? slot - targetIds.length : slot;
+    }
+}
@@ -0,0 +1,84 @@
+package com.minecraft.cheatdetector.data;
+
+import com.minecraft.cheatdetector.CheatDetector;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.util.Identifier;
+
+import java.util.Set;
+
+/**
+ * Lookup table classifying every registered block for X-ray tracking.
+ * Built once from the block registry, the base stone tags and the configured
+ * valuable ores, so block break events only need the block's raw registry id
+ * and an array read.
+ */
+public class BlockClassifier {
+    public static final byte OTHER = 0;
+    public static final byte STONE = 1;
+    public static final byte VALUABLE_ORE = 2;
+    
+    // Category of each block, indexed by raw registry id
+    private volatile byte[] categories = new byte[0];
+    
+    /**
+     * Rebuild the table from the block registry.
+     * Call after the registries are frozen and the tags are bound, and whenever
+     * the tags or the valuable ore list change.
+     * @param valuableOres The ids of the blocks counted as valuable ores
+     */
+    public void rebuild(Set<String> valuableOres) {
+        byte[] table = new byte[Registries.BLOCK.size()];
+        int ores = 0;
+        
+        for (Block block : Registries.BLOCK) {
+            int rawId = Registries.BLOCK.getRawId(block);
+            if (rawId < 0 || rawId >= table.length) {
+                continue;
+            }
+            
+            Identifier id = Registries.BLOCK.getId(block);
+            BlockState state = block.getDefaultState();
+            
+            if (valuableOres.contains(id.toString())) {
+                table[rawId] = VALUABLE_ORE;
+                ores++;
+            } else if (state.isIn(BlockTags.BASE_STONE_OVERWORLD) || state.isIn(BlockTags.BASE_STONE_NETHER)) {
+                // The rock ores generate in, not stone-named building blocks such as sandstone or glowstone
+                table[rawId] = STONE;
+            }
+        }
+        
+        this.categories = table;
+        CheatDetector.LOGGER.info("Classified {} blocks, {} valuable ores", table.length, ores);
+    }
+    
+    /**
+     * Get the raw registry id of a block state's block.
+     * @param state The block state
+     * @return The raw id
+     */
+    public int getRawId(BlockState state) {
+        return Registries.BLOCK.getRawId(state.getBlock());
+    }
+    
+    /**
+     * Get the category of a block.
+     * @param rawId The block's raw registry id
+     * @return One of OTHER, STONE or VALUABLE_ORE
+     */
+    public byte classify(int rawId) {
+        byte[] table = categories;
+        return rawId >= 0 && rawId < table.length ? table[rawId] : OTHER;
+    }
+    
+    /**
+     * Get the number of classified blocks, which bounds every raw id.
+     * @return The table size
+     */
+    public int size() {
+        return categories.length;
+    }
+}
@@ -0,0 +1,19 @@
+package com.minecraft.cheatdetector.data;
+
+/**
+ * The checks that keep a violation level per player.
+ */
+public enum CheckType {
+    // Sustained speed above the limit
+    SPEED,
+    // Rising through the air, as seen by the speed detector
+    IRREGULAR_MOVEMENT,
+    // Hovering or falling too slowly
+    FLIGHT,
+    // Ore finds
+    XRAY,
+    // Attack timing and direction
+    KILL_AURA,
+    // Attack distance
+    REACH
+}
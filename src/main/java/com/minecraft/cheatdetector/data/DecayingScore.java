@@ -0,0 +1,76 @@
+package com.minecraft.cheatdetector.data;
+
+/**
+ * A score that drops by one point for every fixed period since it last changed,
+ * worked out when it is read instead of by a periodic task, so idle scores cost nothing.
+ * Scores are packed into a single long holding the score and the time it last
+ * changed, so a set of them is one flat primitive array.
+ */
+public final class DecayingScore {
+    // The time takes the low bits, the score the rest
+    private static final int TIME_BITS = 48;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int MAX_SCORE = (1 << (Long.SIZE - TIME_BITS)) - 1;
+    
+    private DecayingScore() {
+    }
+    
+    /**
+     * Pack a score.
+     * @param score The score, clamped to the range a packed score holds
+     * @param time The time the score changed in milliseconds
+     * @return The packed score
+     */
+    public static long of(int score, long time) {
+        long clamped = Math.max(0, Math.min(MAX_SCORE, score));
+        return clamped << TIME_BITS | (time & TIME_MASK);
+    }
+    
+    /**
+     * Get a score after the decay since it last changed.
+     * @param packed The packed score
+     * @param time The current time in milliseconds
+     * @param decayMillis The time it takes the score to drop by one point
+     * @return The decayed score
+     */
+    public static int score(long packed, long time, long decayMillis) {
+        int score = storedScore(packed);
+        long elapsed = time - lastChangeTime(packed);
+        if (score == 0 || elapsed < decayMillis) {
+            return score;
+        }
+        return (int) Math.max(0, score - elapsed / decayMillis);
+    }
+    
+    /**
+     * Change a score by an amount, after applying the decay since it last changed.
+     * @param packed The packed score
+     * @param amount The amount to add, negative to lower the score
+     * @param time The current time in milliseconds
+     * @param decayMillis The time it takes the score to drop by one point
+     * @return The packed new score
+     */
+    public static long add(long packed, int amount, long time, long decayMillis) {
+        // A change stamped before the last one, as a movement sample's time can be, never rewinds the decay
+        long changeTime = Math.max(time, lastChangeTime(packed));
+        return of(score(packed, changeTime, decayMillis) + amount, changeTime);
+    }
+    
+    /**
+     * Get a score as it was when it last changed, without decay.
+     * @param packed The packed score
+     * @return The stored score
+     */
+    public static int storedScore(long packed) {
+        return (int) (packed >>> TIME_BITS);
+    }
+    
+    /**
+     * Get the time a score last changed.
+     * @param packed The packed score
+     * @return The time in milliseconds
+     */
+    public static long lastChangeTime(long packed) {
+        return packed & TIME_MASK;
+    }
+}
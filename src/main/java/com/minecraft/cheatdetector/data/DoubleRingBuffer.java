@@ -0,0 +1,174 @@
+package com.minecraft.cheatdetector.data;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed-capacity ring buffer of doubles that keeps a running sum and sum of squares.
+ * Once full, each new value replaces the oldest one. Mean and variance are O(1)
+ * and adding a value never allocates.
+ */
+public class DoubleRingBuffer {
+    private final double[] values;
+    private int head;
+    private int size;
+    private double sum;
+    private double sumOfSquares;
+    
+    /**
+     * Create an empty ring buffer.
+     * @param capacity The maximum number of values kept
+     */
+    public DoubleRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.values = new double[capacity];
+    }
+    
+    /**
+     * Add a value, evicting the oldest one if the buffer is full.
+     * @param value The value to add
+     */
+    public void add(double value) {
+        if (size == values.length) {
+            double evicted = values[head];
+            sum -= evicted;
+            sumOfSquares -= evicted * evicted;
+        } else {
+            size++;
+        }
+        
+        values[head] = value;
+        sum += value;
+        sumOfSquares += value * value;
+        
+        head++;
+        if (head == values.length) {
+            head = 0;
+            // Recompute the totals once per lap so rounding errors cannot accumulate
+            recomputeTotals();
+        }
+    }
+    
+    /**
+     * Get a value by age.
+     * @param index 0 for the oldest value, size() - 1 for the newest
+     * @return The value
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int start = head - size;
+        if (start < 0) {
+            start += values.length;
+        }
+        int slot = start + index;
+        if (slot >= values.length) {
+            slot -= values.length;
+        }
+        return values[slot];
+    }
+    
+    /**
+     * Get the most recently added value.
+     * @return The newest value
+     */
+    public double latest() {
+        return get(size - 1);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return values.length;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public double sum() {
+        return sum;
+    }
+    
+    /**
+     * Get the mean of the stored values.
+     * @return The mean, or 0 if the buffer is empty
+     */
+    public double mean() {
+        return size == 0 ? 0 : sum / size;
+    }
+    
+    /**
+     * Get the population variance of the stored values.
+     * @return The variance, or 0 if the buffer is empty
+     */
+    public double variance() {
+        if (size == 0) {
+            return 0;
+        }
+        double mean = sum / size;
+        return Math.max(0, sumOfSquares / size - mean * mean);
+    }
+    
+    /**
+     * Get the population standard deviation of the stored values.
+     * @return The standard deviation, or 0 if the buffer is empty
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+    
+    /**
+     * Remove all values.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        sum = 0;
+        sumOfSquares = 0;
+    }
+    
+    /**
+     * Write the stored values, oldest first.
+     * @param out The output to write to
+     * @throws IOException If writing fails
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeShort(size);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(get(i));
+        }
+    }
+    
+    /**
+     * Replace the stored values with ones written by {@link #writeTo(DataOutput)}.
+     * If more values were written than fit, the oldest ones are dropped.
+     * @param in The input to read from
+     * @throws IOException If reading fails
+     */
+    public void readFrom(DataInput in) throws IOException {
+        clear();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            add(in.readDouble());
+        }
+    }
+    
+    private void recomputeTotals() {
+        double newSum = 0;
+        double newSumOfSquares = 0;
+        for (int i = 0; i < size; i++) {
+            double value = values[i];
+            newSum += value;
+            newSumOfSquares += value * value;
+        }
+        sum = newSum;
+        sumOfSquares = newSumOfSquares;
+    }
+}
@@ -0,0 +1,132 @@
+package com.minecraft.cheatdetector.data;
+
+/**
+ * Fixed-capacity ring buffer of the positions and times of recently mined blocks.
+ * Once full, each new block replaces the oldest one. Adding a block never allocates.
+ */
+public class MiningTrail {
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] zs;
+    private final long[] times;
+    private int head;
+    private int size;
+    
+    /**
+     * Create an empty trail.
+     * @param capacity The maximum number of blocks kept
+     */
+    public MiningTrail(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.zs = new int[capacity];
+        this.times = new long[capacity];
+    }
+    
+    /**
+     * Add a mined block, evicting the oldest one if the trail is full.
+     * @param x The x coordinate of the block
+     * @param y The y coordinate of the block
+     * @param z The z coordinate of the block
+     * @param time The time the block was mined in milliseconds
+     */
+    public void add(int x, int y, int z, long time) {
+        xs[head] = x;
+        ys[head] = y;
+        zs[head] = z;
+        times[head] = time;
+        
+        head++;
+        if (head == xs.length) {
+            head = 0;
+        }
+        if (size < xs.length) {
+            size++;
+        }
+    }
+    
+    public int getX(int index) {
+        return xs[slot(index)];
+    }
+    
+    public int getY(int index) {
+        return ys[slot(index)];
+    }
+    
+    public int getZ(int index) {
+        return zs[slot(index)];
+    }
+    
+    public long getTime(int index) {
+        return times[slot(index)];
+    }
+    
+    /**
+     * Check whether a block is in the trail.
+     * @param x The x coordinate of the block
+     * @param y The y coordinate of the block
+     * @param z The z coordinate of the block
+     * @return Whether the block was mined recently
+     */
+    public boolean contains(int x, int y, int z) {
+        // The filled slots are always 0 to size - 1, in whatever order
+        for (int i = 0; i < size; i++) {
+            if (xs[i] == x && ys[i] == y && zs[i] == z) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Check whether a block shares a face with any block in the trail.
+     * @param x The x coordinate of the block
+     * @param y The y coordinate of the block
+     * @param z The z coordinate of the block
+     * @return Whether the block is next to a block mined recently
+     */
+    public boolean touches(int x, int y, int z) {
+        for (int i = 0; i < size; i++) {
+            if (Math.abs(xs[i] - x) + Math.abs(ys[i] - y) + Math.abs(zs[i] - z) == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return xs.length;
+    }
+    
+    /**
+     * Remove all blocks.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+    
+    /**
+     * Map an age index to an array slot.
+     * @param index 0 for the oldest block, size() - 1 for the newest
+     * @return The array slot
+     */
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int start = head - size;
+        if (start < 0) {
+            start += xs.length;
+        }
+        int slot = start + index;
+        return slot >= xs.length ? slot - xs.length : slot;
+    }
+}
@@ -0,0 +1,173 @@
+package com.minecraft.cheatdetector.data;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-chunk-section bitmaps of the open blocks, air or fluid, of every world.
+ * A section is scanned once, the first time a mined ore next to it is checked,
+ * and is then kept current by block changes and dropped when its chunk unloads.
+ * Whether an ore had an exposed face is then six bit lookups, skipping the
+ * faces the player opened by mining.
+ * Only used on the server thread.
+ */
+public class OreExposureCache {
+    private static final int WORDS_PER_SECTION = 16 * 16 * 16 / 64;
+    
+    private final Map<RegistryKey<World>, Long2ObjectOpenHashMap<long[]>> worlds = new HashMap<>();
+    
+    /**
+     * Check whether a block had an open face that the player did not open themselves.
+     * Mining a block only changes the block itself, so its neighbours still show
+     * whether it was visible. A neighbour the player mined is counted as closed:
+     * every mined block has an open face by the time it is mined, and only faces
+     * that were open before the player dug up to the block say it was visible.
+     * @param world The world of the block
+     * @param pos The position of the block
+     * @param trail The blocks the player mined recently
+     * @return Whether any of the six neighbours is air or fluid and not in the trail
+     */
+    public boolean isExposed(ServerWorld world, BlockPos pos, MiningTrail trail) {
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
+        Long2ObjectOpenHashMap<long[]> sections = sectionsOf(world);
+        return isOpenFace(world, sections, trail, x + 1, y, z) || isOpenFace(world, sections, trail, x - 1, y, z)
+                || isOpenFace(world, sections, trail, x, y + 1, z) || isOpenFace(world, sections, trail, x, y - 1, z)
+                || isOpenFace(world, sections, trail, x, y, z + 1) || isOpenFace(world, sections, trail, x, y, z - 1);
+    }
+    
+    /**
+     * Update the cached bit of a changed block, if its section is cached.
+     * @param world The world of the block
+     * @param pos The position of the block
+     * @param state The new state of the block
+     */
+    public void onBlockChanged(ServerWorld world, BlockPos pos, BlockState state) {
+        Long2ObjectOpenHashMap<long[]> sections = worlds.get(world.getRegistryKey());
+        if (sections == null) {
+            return;
+        }
+        
+        long[] bits = sections.get(ChunkSectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4));
+        if (bits != null) {
+            setOpen(bits, index(pos.getX(), pos.getY(), pos.getZ()), isOpen(state));
+        }
+    }
+    
+    /**
+     * Drop the cached sections of an unloaded chunk.
+     * @param world The world of the chunk
+     * @param chunk The chunk
+     */
+    public void onChunkUnloaded(ServerWorld world, WorldChunk chunk) {
+        Long2ObjectOpenHashMap<long[]> sections = worlds.get(world.getRegistryKey());
+        if (sections == null || sections.isEmpty()) {
+            return;
+        }
+        
+        int chunkX = chunk.getPos().x;
+        int chunkZ = chunk.getPos().z;
+        for (int sectionY = world.getBottomSectionCoord(); sectionY <= world.getTopSectionCoord(); sectionY++) {
+            sections.remove(ChunkSectionPos.asLong(chunkX, sectionY, chunkZ));
+        }
+    }
+    
+    /**
+     * Drop all cached sections, as when the server stops.
+     */
+    public void clear() {
+        worlds.clear();
+    }
+    
+    private Long2ObjectOpenHashMap<long[]> sectionsOf(ServerWorld world) {
+        return worlds.computeIfAbsent(world.getRegistryKey(), key -> new Long2ObjectOpenHashMap<>());
+    }
+    
+    private boolean isOpenFace(ServerWorld world, Long2ObjectOpenHashMap<long[]> sections, MiningTrail trail, int x, int y, int z) {
+        return isOpen(world, sections, x, y, z) && !trail.contains(x, y, z);
+    }
+    
+    private boolean isOpen(ServerWorld world, Long2ObjectOpenHashMap<long[]> sections, int x, int y, int z) {
+        // Above the build limit is sky, below it is the void
+        if (y < world.getBottomY()) {
+            return false;
+        }
+        if (y > world.getTopYInclusive()) {
+            return true;
+        }
+        
+        long key = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+        long[] bits = sections.get(key);
+        if (bits == null) {
+            bits = scanSection(world, x >> 4, y >> 4, z >> 4);
+            if (bits == null) {
+                // The neighbouring chunk is not loaded, count the face as closed
+                return false;
+            }
+            sections.put(key, bits);
+        }
+        
+        int index = index(x, y, z);
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    /**
+     * Build the open block bitmap of a section of a loaded chunk.
+     * @return The bitmap, or null if the chunk is not loaded
+     */
+    private static long[] scanSection(ServerWorld world, int sectionX, int sectionY, int sectionZ) {
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(sectionX, sectionZ);
+        if (chunk == null) {
+            return null;
+        }
+        
+        long[] bits = new long[WORDS_PER_SECTION];
+        ChunkSection section = chunk.getSection(world.sectionCoordToIndex(sectionY));
+        if (section.isEmpty()) {
+            Arrays.fill(bits, -1L);
+            return bits;
+        }
+        
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (isOpen(section.getBlockState(x, y, z))) {
+                        setOpen(bits, index(x, y, z), true);
+                    }
+                }
+            }
+        }
+        return bits;
+    }
+    
+    private static boolean isOpen(BlockState state) {
+        return state.isAir() || !state.getFluidState().isEmpty();
+    }
+    
+    private static void setOpen(long[] bits, int index, boolean open) {
+        if (open) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+    
+    /**
+     * Get the bit index of a block within its section.
+     */
+    private static int index(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+}
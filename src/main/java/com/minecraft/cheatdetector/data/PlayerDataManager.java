@@ -1,34 +1,76 @@
 package com.minecraft.cheatdetector.data;
 
 import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
+import net.minecraft.registry.Registries;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.math.Vec3d;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages player data for cheat detection purposes.
+ * The registry itself is safe to use from any thread. A PlayerData is only
+ * mutated on the server thread; other threads read its published snapshot.
  */
 public class PlayerDataManager {
     // Map of player UUID to their tracking data
-    private final Map<UUID, PlayerData> playerDataMap = new HashMap<>();
+    private final Map<UUID, PlayerData> playerDataMap = new ConcurrentHashMap<>();
+    
+    // Persists detection history across relogs and restarts, or null to keep data in memory only
+    private final PlayerProfileStore profileStore;
+    
+    // Time source for the creation time of new entries
+    private final DetectorClock clock;
+    
+    /**
+     * Create a player data manager that keeps data in memory only.
+     * @param clock The detector clock
+     */
+    public PlayerDataManager(DetectorClock clock) {
+        this(clock, null);
+    }
+    
+    /**
+     * Create a player data manager backed by a profile store.
+     * @param clock The detector clock
+     * @param profileStore The store to load and save profiles with, or null to keep data in memory only
+     */
+    public PlayerDataManager(DetectorClock clock, PlayerProfileStore profileStore) {
+        this.clock = clock;
+        this.profileStore = profileStore;
+    }
     
     /**
      * Get player data for a specific player, creating a new entry if necessary.
+     * A new entry is restored from the player's saved profile, if there is one.
      * @param player The player to get data for
      * @return The player's data
      */
     public PlayerData getPlayerData(ServerPlayerEntity player) {
-        return playerDataMap.computeIfAbsent(player.getUuid(), uuid -> new PlayerData(player));
+        return playerDataMap.computeIfAbsent(player.getUuid(), uuid -> loadPlayerData(player));
+    }
+    
+    /**
+     * Get player data for a specific player without creating it.
+     * @param uuid The player's UUID
+     * @return The player's data, or null if there is none
+     */
+    public PlayerData getPlayerDataIfPresent(UUID uuid) {
+        return playerDataMap.get(uuid);
     }
     
     /**
@@ -41,11 +83,14 @@ public class PlayerDataManager {
     }
     
     /**
-     * Remove a player's data.
+     * Remove a player's data, saving their profile first.
      * @param uuid The player's UUID
      */
     public void removePlayerData(UUID uuid) {
-        playerDataMap.remove(uuid);
+        PlayerData data = playerDataMap.remove(uuid);
+        if (data != null) {
+            saveProfile(data);
+        }
     }
     
     /**
@@ -56,23 +101,129 @@ public class PlayerDataManager {
         return playerDataMap;
     }
     
+    /**
+     * Publish a new snapshot for every player whose data changed.
+     * Must be called on the server thread, once per tick.
+     */
+    public void publishSnapshots() {
+        for (PlayerData data : playerDataMap.values()) {
+            data.publishSnapshot();
+        }
+    }
+    
+    /**
+     * Get the last published snapshot of a player's data.
+     * Can be called from any thread.
+     * @param uuid The player's UUID
+     * @return The snapshot, or null if there's no data for the player
+     */
+    public PlayerDataSnapshot getSnapshot(UUID uuid) {
+        PlayerData data = playerDataMap.get(uuid);
+        return data != null ? data.getSnapshot() : null;
+    }
+    
+    /**
+     * Get the last published snapshots of all players.
+     * Can be called from any thread.
+     * @return A list of snapshots
+     */
+    public List<PlayerDataSnapshot> getSnapshots() {
+        List<PlayerDataSnapshot> snapshots = new ArrayList<>(playerDataMap.size());
+        for (PlayerData data : playerDataMap.values()) {
+            snapshots.add(data.getSnapshot());
+        }
+        return snapshots;
+    }
+    
+    /**
+     * Save the profiles of all players currently tracked.
+     * Only the records of players whose profile changed since it was last saved
+     * are appended; nothing else is rewritten.
+     */
+    public void saveProfiles() {
+        for (PlayerData data : playerDataMap.values()) {
+            saveProfile(data);
+        }
+    }
+    
     /**
      * Save all player data to disk.
+     * This method is only called when the server is shutting down.
      */
     public void saveAllData() {
-        // Currently, we're not saving player data across server restarts.
-        // This method is only called when the server is shutting down.
+        if (profileStore == null) {
+            return;
+        }
+        saveProfiles();
+        profileStore.close();
+    }
+    
+    /**
+     * Create data for a player and restore their saved profile.
+     * @param player The player
+     * @return The player's data
+     */
+    private PlayerData loadPlayerData(ServerPlayerEntity player) {
+        PlayerData data = new PlayerData(player, clock.getMillis());
+        if (profileStore == null) {
+            return data;
+        }
+        
+        byte[] profile = profileStore.load(player.getUuid());
+        if (profile != null) {
+            try {
+                data.readProfile(new DataInputStream(new ByteArrayInputStream(profile)));
+            } catch (IOException e) {
+                CheatDetector.LOGGER.error("Failed to read profile of " + data.getPlayerName() + ": " + e.getMessage());
+            }
+        }
+        return data;
+    }
+    
+    /**
+     * Encode a player's profile and queue it for saving, unless it is unchanged since the last save.
+     * @param data The player's data
+     */
+    private void saveProfile(PlayerData data) {
+        if (profileStore == null || !data.profileDirty) {
+            return;
+        }
+        
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            data.writeProfile(new DataOutputStream(bytes));
+            profileStore.save(data.getUuid(), bytes.toByteArray());
+            data.profileDirty = false;
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to save profile of " + data.getPlayerName() + ": " + e.getMessage());
+        }
     }
     
     /**
      * Class representing player tracking data for cheat detection.
      */
     public static class PlayerData {
+        // Bumped whenever the profile layout changes; readProfile converts the older versions it knows
+        private static final int PROFILE_FORMAT_VERSION = 2;
+        
+        // Violation levels drop by one for each of these without a change
+        private static final long VIOLATION_DECAY_MILLIS = 10000;
+        
+        // Order the levels are saved in profiles, fixed so the format does not follow the enum;
+        // null keeps the slot of the retired no-fall level, written as zero and skipped on load
+        private static final CheckType[] PROFILE_CHECK_ORDER = {
+                CheckType.SPEED, CheckType.FLIGHT, CheckType.XRAY, CheckType.KILL_AURA,
+                CheckType.REACH, null, CheckType.IRREGULAR_MOVEMENT
+        };
+        
         private final UUID uuid;
         private final String playerName;
         
         // Movement tracking
-        private Vec3d lastPosition;
+        private double lastX;
+        private double lastY;
+        private double lastZ;
+        private boolean hasLastPosition;
         private Vec3d lastVelocity;
         private long lastPositionTime;
         private boolean wasOnGround;
@@ -81,80 +232,270 @@ public class PlayerDataManager {
         private float lastYaw;
         private float lastPitch;
         private long lastTeleportTime;
+        // How far the client's movement ticks ran ahead of their arrival, in milliseconds
+        private long clientAheadMillis;
         
-        // Speed hack tracking
-        private int speedViolationLevel;
-        private long lastSpeedViolationTime;
+        // Violation levels as packed decaying scores, by check type ordinal
+        private final long[] violationScores = new long[CheckType.values().length];
         
         // Flight hack tracking
-        private int flightViolationLevel;
-        private long lastFlightViolationTime;
         private long continuousAirTime;
         
         // X-ray tracking
-        private int xrayViolationLevel;
-        private long lastXrayViolationTime;
-        private Map<String, Integer> minedBlocks = new HashMap<>();
+        // Mined block counts indexed by raw block registry id, grown on demand
+        private int[] minedBlocks = new int[0];
+        // Valuable ores as configured, diamond ore by default
         private int diamondsMined;
         private int stoneMined;
+        // Valuable ores by whether they had an open face when mined, this session only
+        private int exposedOresMined;
+        private int hiddenOresMined;
+        private int tunnelledOresMined;
+        private final MiningTrail miningTrail = new MiningTrail(16);
         
         // Combat tracking
-        private int killAuraViolationLevel;
-        private long lastKillAuraViolationTime;
         private long lastAttackTime;
         private int attackCount;
-        private final Map<UUID, Long> attackedEntities = new HashMap<>();
-        
-        // Reach hack tracking
-        private int reachViolationLevel;
-        private long lastReachViolationTime;
-        
-        // NoFall tracking
-        private int noFallViolationLevel;
-        private long lastNoFallViolationTime;
-        private double fallDistance;
-        private boolean shouldTakeFallDamage;
+        private final RecentTargetWindow recentTargets = new RecentTargetWindow();
+        private final DoubleRingBuffer attackIntervals = new DoubleRingBuffer(20);
+        private final AttackDirectionBuffer attackDirections = new AttackDirectionBuffer(8);
         
         /**
          * Store recent movement speeds for analysis
          */
-        private final List<Double> recentMovementSpeeds = new ArrayList<>();
+        private final DoubleRingBuffer recentMovementSpeeds = new DoubleRingBuffer(20);
         
         /**
          * Store position history for movement analysis
          */
-        private final List<Vec3d> positionHistory = new ArrayList<>();
+        private final Vec3RingBuffer positionHistory = new Vec3RingBuffer(10);
         
         /**
-         * Track violations of irregular movement patterns
+         * Snapshot published for readers off the server thread
          */
-        private int irregularMovementViolations = 0;
-        private long lastIrregularMovementViolationTime = 0;
+        private volatile PlayerDataSnapshot snapshot;
+        private boolean snapshotDirty;
+        private long snapshotVersion;
+        
+        // Whether the part written by writeProfile changed since the profile was last saved
+        private boolean profileDirty;
         
         /**
          * Create player data for a specific player.
          * @param player The player to create data for
+         * @param time The current time in milliseconds
          */
-        public PlayerData(ServerPlayerEntity player) {
-            this.uuid = player.getUuid();
-            this.playerName = player.getName().getString();
-            this.lastPosition = player.getPos();
-            this.lastPositionTime = System.currentTimeMillis();
-            this.wasOnGround = player.isOnGround();
-            this.lastGroundTime = System.currentTimeMillis();
+        public PlayerData(ServerPlayerEntity player, long time) {
+            this(player.getUuid(), player.getName().getString(), player.getPos(), player.isOnGround(), time);
             this.lastYaw = player.getYaw();
             this.lastPitch = player.getPitch();
         }
         
+        /**
+         * Create player data without a live player entity, as when replaying a trace.
+         * @param uuid The player's UUID
+         * @param playerName The player's name
+         * @param position The player's current position
+         * @param onGround Whether the player is on the ground
+         * @param time The current time in milliseconds
+         */
+        public PlayerData(UUID uuid, String playerName, Vec3d position, boolean onGround, long time) {
+            this.uuid = uuid;
+            this.playerName = playerName;
+            if (position != null) {
+                this.lastX = position.x;
+                this.lastY = position.y;
+                this.lastZ = position.z;
+                this.hasLastPosition = true;
+            }
+            this.lastPositionTime = time;
+            this.wasOnGround = onGround;
+            this.lastGroundTime = time;
+            Arrays.fill(violationScores, DecayingScore.of(0, time));
+            this.snapshot = createSnapshot();
+        }
+        
+        /**
+         * Write the long-lived part of this data: violation levels, mined blocks and rolling stats.
+         * @param out The output to write to
+         * @throws IOException If writing fails
+         */
+        public void writeProfile(DataOutput out) throws IOException {
+            out.writeByte(PROFILE_FORMAT_VERSION);
+            
+            for (CheckType type : PROFILE_CHECK_ORDER) {
+                out.writeInt(type != null ? DecayingScore.storedScore(violationScores[type.ordinal()]) : 0);
+            }
+            
+            out.writeInt(diamondsMined);
+            out.writeInt(stoneMined);
+            
+            // Raw ids can change between game versions, so save block ids instead
+            int blockTypes = 0;
+            for (int count : minedBlocks) {
+                if (count > 0) {
+                    blockTypes++;
+                }
+            }
+            out.writeInt(blockTypes);
+            for (int rawId = 0; rawId < minedBlocks.length; rawId++) {
+                if (minedBlocks[rawId] > 0) {
+                    out.writeUTF(Registries.BLOCK.getId(Registries.BLOCK.get(rawId)).toString());
+                    out.writeInt(minedBlocks[rawId]);
+                }
+            }
+            
+            recentMovementSpeeds.writeTo(out);
+            attackIntervals.writeTo(out);
+        }
+        
+        /**
+         * Restore the data written by {@link #writeProfile(DataOutput)}.
+         * @param in The input to read from
+         * @throws IOException If reading fails or the profile has an unknown format
+         */
+        public void readProfile(DataInput in) throws IOException {
+            int version = in.readUnsignedByte();
+            if (version != PROFILE_FORMAT_VERSION && version != 1) {
+                throw new IOException("Unknown profile format " + version);
+            }
+            
+            // Restored levels start decaying from the time the data was created
+            for (CheckType type : PROFILE_CHECK_ORDER) {
+                int level = in.readInt();
+                if (type != null) {
+                    long score = violationScores[type.ordinal()];
+                    violationScores[type.ordinal()] = DecayingScore.of(level, DecayingScore.lastChangeTime(score));
+                }
+            }
+            
+            diamondsMined = in.readInt();
+            stoneMined = in.readInt();
+            int blockTypes = in.readInt();
+            minedBlocks = new int[0];
+            for (int i = 0; i < blockTypes; i++) {
+                String blockId = in.readUTF();
+                int count = in.readInt();
+                
+                // Version 1 profiles keyed blocks by Block.toString(), e.g. "Block{minecraft:stone}"
+                if (version == 1 && blockId.startsWith("Block{") && blockId.endsWith("}")) {
+                    blockId = blockId.substring("Block{".length(), blockId.length() - 1);
+                }
+                
+                Identifier id = Identifier.tryParse(blockId);
+                if (id != null && Registries.BLOCK.containsId(id)) {
+                    int rawId = Registries.BLOCK.getRawId(Registries.BLOCK.get(id));
+                    ensureMinedBlockCapacity(rawId);
+                    minedBlocks[rawId] += count;
+                }
+            }
+            
+            recentMovementSpeeds.readFrom(in);
+            attackIntervals.readFrom(in);
+            
+            snapshotDirty = true;
+        }
+        
+        /**
+         * Publish a new snapshot if anything changed since the last one.
+         */
+        void publishSnapshot() {
+            if (snapshotDirty) {
+                snapshotDirty = false;
+                snapshotVersion++;
+                snapshot = createSnapshot();
+            }
+        }
+        
+        /**
+         * Get the last published snapshot.
+         * @return The snapshot
+         */
+        public PlayerDataSnapshot getSnapshot() {
+            return snapshot;
+        }
+        
+        private PlayerDataSnapshot createSnapshot() {
+            return new PlayerDataSnapshot(uuid, playerName, snapshotVersion,
+                    violationScores.clone(), VIOLATION_DECAY_MILLIS,
+                    diamondsMined, stoneMined, attackCount);
+        }
+        
+        // Violation levels
+        
+        /**
+         * Get a violation level after the decay since it last changed.
+         * @param type The check the level belongs to
+         * @param time The current time in milliseconds
+         * @return The decayed level
+         */
+        public int getViolationLevel(CheckType type, long time) {
+            return DecayingScore.score(violationScores[type.ordinal()], time, VIOLATION_DECAY_MILLIS);
+        }
+        
+        /**
+         * Raise a violation level by one.
+         * @param type The check the level belongs to
+         * @param time The time of the violation in milliseconds
+         */
+        public void increaseViolationLevel(CheckType type, long time) {
+            changeViolationLevel(type, 1, time);
+        }
+        
+        /**
+         * Lower a violation level, as after action was taken.
+         * @param type The check the level belongs to
+         * @param amount The number of levels to remove
+         * @param time The current time in milliseconds
+         */
+        public void decreaseViolationLevel(CheckType type, int amount, long time) {
+            changeViolationLevel(type, -amount, time);
+        }
+        
+        private void changeViolationLevel(CheckType type, int amount, long time) {
+            int index = type.ordinal();
+            violationScores[index] = DecayingScore.add(violationScores[index], amount, time, VIOLATION_DECAY_MILLIS);
+            snapshotDirty = true;
+            profileDirty = true;
+        }
+        
         // Getters and setters for movement tracking
         
+        /**
+         * Get the last known position as a vector.
+         * Allocates; the detectors read the coordinates instead.
+         * @return The position, or null if none is known
+         */
         public Vec3d getLastPosition() {
-            return lastPosition;
+            return hasLastPosition ? new Vec3d(lastX, lastY, lastZ) : null;
         }
         
-        public void setLastPosition(Vec3d position) {
-            this.lastPosition = position;
-            this.lastPositionTime = System.currentTimeMillis();
+        public boolean hasLastPosition() {
+            return hasLastPosition;
+        }
+        
+        public double getLastX() {
+            return lastX;
+        }
+        
+        public double getLastY() {
+            return lastY;
+        }
+        
+        public double getLastZ() {
+            return lastZ;
+        }
+        
+        public void setLastPosition(Vec3d position, long time) {
+            setLastPosition(position.x, position.y, position.z, time);
+        }
+        
+        public void setLastPosition(double x, double y, double z, long time) {
+            this.lastX = x;
+            this.lastY = y;
+            this.lastZ = z;
+            this.hasLastPosition = true;
+            this.lastPositionTime = time;
         }
         
         public Vec3d getLastVelocity() {
@@ -169,6 +510,14 @@ public class PlayerDataManager {
             this.lastPositionTime = time;
         }
         
+        public long getClientAheadMillis() {
+            return clientAheadMillis;
+        }
+        
+        public void setClientAheadMillis(long clientAheadMillis) {
+            this.clientAheadMillis = clientAheadMillis;
+        }
+        
         public void setGroundState(boolean onGround, long time) {
             if (onGround && !this.wasOnGround) {
                 this.lastGroundTime = time;
@@ -214,48 +563,8 @@ public class PlayerDataManager {
             this.lastTeleportTime = lastTeleportTime;
         }
         
-        // Getters and setters for speed hack tracking
-        
-        public int getSpeedViolationLevel() {
-            return speedViolationLevel;
-        }
-        
-        public void increaseSpeedViolationLevel() {
-            this.speedViolationLevel++;
-            this.lastSpeedViolationTime = System.currentTimeMillis();
-        }
-        
-        public void decreaseSpeedViolationLevel() {
-            if (this.speedViolationLevel > 0) {
-                this.speedViolationLevel--;
-            }
-        }
-        
-        public long getLastSpeedViolationTime() {
-            return lastSpeedViolationTime;
-        }
-        
         // Getters and setters for flight hack tracking
         
-        public int getFlightViolationLevel() {
-            return flightViolationLevel;
-        }
-        
-        public void increaseFlightViolationLevel() {
-            this.flightViolationLevel++;
-            this.lastFlightViolationTime = System.currentTimeMillis();
-        }
-        
-        public void decreaseFlightViolationLevel() {
-            if (this.flightViolationLevel > 0) {
-                this.flightViolationLevel--;
-            }
-        }
-        
-        public long getLastFlightViolationTime() {
-            return lastFlightViolationTime;
-        }
-        
         public long getContinuousAirTime() {
             return continuousAirTime;
         }
@@ -266,37 +575,32 @@ public class PlayerDataManager {
         
         // Getters and setters for X-ray tracking
         
-        public int getXrayViolationLevel() {
-            return xrayViolationLevel;
-        }
-        
-        public void increaseXrayViolationLevel() {
-            this.xrayViolationLevel++;
-            this.lastXrayViolationTime = System.currentTimeMillis();
-        }
-        
-        public void decreaseXrayViolationLevel() {
-            if (this.xrayViolationLevel > 0) {
-                this.xrayViolationLevel--;
-            }
-        }
-        
-        public long getLastXrayViolationTime() {
-            return lastXrayViolationTime;
-        }
-        
-        public void addMinedBlock(String blockId) {
-            minedBlocks.put(blockId, minedBlocks.getOrDefault(blockId, 0) + 1);
+        /**
+         * Count a mined block.
+         * @param rawId The block's raw registry id
+         * @param category The block's category from the {@link BlockClassifier}
+         */
+        public void addMinedBlock(int rawId, byte category) {
+            snapshotDirty = true;
+            profileDirty = true;
+            ensureMinedBlockCapacity(rawId);
+            minedBlocks[rawId]++;
             
-            if (blockId.contains("diamond_ore")) {
+            if (category == BlockClassifier.VALUABLE_ORE) {
                 diamondsMined++;
-            } else if (blockId.contains("stone") || blockId.contains("deepslate")) {
+            } else if (category == BlockClassifier.STONE) {
                 stoneMined++;
             }
         }
         
-        public int getMinedBlockCount(String blockId) {
-            return minedBlocks.getOrDefault(blockId, 0);
+        public int getMinedBlockCount(int rawId) {
+            return rawId >= 0 && rawId < minedBlocks.length ? minedBlocks[rawId] : 0;
+        }
+        
+        private void ensureMinedBlockCapacity(int rawId) {
+            if (rawId >= minedBlocks.length) {
+                minedBlocks = Arrays.copyOf(minedBlocks, Math.max(rawId + 1, Registries.BLOCK.size()));
+            }
         }
         
         public int getDiamondsMined() {
@@ -307,30 +611,47 @@ public class PlayerDataManager {
             return stoneMined;
         }
         
-        // Getters and setters for KillAura tracking
+        /**
+         * Record how a valuable ore was found
+         * @param exposed Whether the ore had an open face before it was mined
+         * @param tunnelled Whether the player's recent tunnel led straight to the hidden ore
+         */
+        public void recordOreDiscovery(boolean exposed, boolean tunnelled) {
+            if (exposed) {
+                exposedOresMined++;
+            } else {
+                hiddenOresMined++;
+                if (tunnelled) {
+                    tunnelledOresMined++;
+                }
+            }
+        }
         
-        public int getKillAuraViolationLevel() {
-            return killAuraViolationLevel;
+        public int getExposedOresMined() {
+            return exposedOresMined;
         }
         
-        public void increaseKillAuraViolationLevel() {
-            this.killAuraViolationLevel++;
-            this.lastKillAuraViolationTime = System.currentTimeMillis();
+        public int getHiddenOresMined() {
+            return hiddenOresMined;
         }
         
-        public void decreaseKillAuraViolationLevel() {
-            if (this.killAuraViolationLevel > 0) {
-                this.killAuraViolationLevel--;
-            }
+        public int getTunnelledOresMined() {
+            return tunnelledOresMined;
         }
         
-        public long getLastKillAuraViolationTime() {
-            return lastKillAuraViolationTime;
+        /**
+         * Get the blocks this player mined most recently
+         * @return Ring buffer of the last 16 mined blocks
+         */
+        public MiningTrail getMiningTrail() {
+            return miningTrail;
         }
         
-        public void recordAttack(UUID entityId) {
-            long currentTime = System.currentTimeMillis();
-            attackedEntities.put(entityId, currentTime);
+        // Getters and setters for KillAura tracking
+        
+        public void recordAttack(UUID entityId, long currentTime) {
+            snapshotDirty = true;
+            recentTargets.add(entityId, currentTime);
             
             if (currentTime - lastAttackTime < 500) {
                 attackCount++;
@@ -349,70 +670,34 @@ public class PlayerDataManager {
             return lastAttackTime;
         }
         
-        public int getRecentTargetCount() {
-            long currentTime = System.currentTimeMillis();
-            // Count entities attacked in the last 2 seconds
-            return (int) attackedEntities.values().stream()
-                    .filter(time -> currentTime - time < 2000)
-                    .count();
-        }
-        
-        // Getters and setters for reach hack tracking
-        
-        public int getReachViolationLevel() {
-            return reachViolationLevel;
-        }
-        
-        public void increaseReachViolationLevel() {
-            this.reachViolationLevel++;
-            this.lastReachViolationTime = System.currentTimeMillis();
-        }
-        
-        public void decreaseReachViolationLevel() {
-            if (this.reachViolationLevel > 0) {
-                this.reachViolationLevel--;
-            }
-        }
-        
-        public long getLastReachViolationTime() {
-            return lastReachViolationTime;
-        }
-        
-        // Getters and setters for NoFall tracking
-        
-        public int getNoFallViolationLevel() {
-            return noFallViolationLevel;
-        }
-        
-        public void increaseNoFallViolationLevel() {
-            this.noFallViolationLevel++;
-            this.lastNoFallViolationTime = System.currentTimeMillis();
-        }
-        
-        public void decreaseNoFallViolationLevel() {
-            if (this.noFallViolationLevel > 0) {
-                this.noFallViolationLevel--;
-            }
-        }
-        
-        public long getLastNoFallViolationTime() {
-            return lastNoFallViolationTime;
-        }
-        
-        public double getFallDistance() {
-            return fallDistance;
+        /**
+         * Add the time between two rapid attacks
+         * @param interval The interval in milliseconds
+         */
+        public void addAttackInterval(long interval) {
+            attackIntervals.add(interval);
+            profileDirty = true;
         }
         
-        public void setFallDistance(double fallDistance) {
-            this.fallDistance = fallDistance;
+        /**
+         * Get the recent intervals between rapid attacks
+         * @return Ring buffer of the last 20 intervals in milliseconds
+         */
+        public DoubleRingBuffer getAttackIntervals() {
+            return attackIntervals;
         }
         
-        public boolean isShouldTakeFallDamage() {
-            return shouldTakeFallDamage;
+        /**
+         * Get the directions of the recent attacks
+         * @return Ring buffer of the last 8 attacks
+         */
+        public AttackDirectionBuffer getAttackDirections() {
+            return attackDirections;
         }
         
-        public void setShouldTakeFallDamage(boolean shouldTakeFallDamage) {
-            this.shouldTakeFallDamage = shouldTakeFallDamage;
+        public int getRecentTargetCount(long currentTime) {
+            // Count entities attacked in the last 2 seconds
+            return recentTargets.countDistinct(currentTime);
         }
         
         public UUID getUuid() {
@@ -429,45 +714,23 @@ public class PlayerDataManager {
          */
         public void addMovementSpeed(double speed) {
             recentMovementSpeeds.add(speed);
-            // Trim if too large
-            while (recentMovementSpeeds.size() > 30) {
-                recentMovementSpeeds.remove(0);
-            }
+            profileDirty = true;
         }
         
         /**
-         * Get the list of recent movement speeds
-         * @return List of recent speeds in blocks per second
+         * Get the recent movement speeds
+         * @return Ring buffer of the last 20 speeds in blocks per second
          */
-        public List<Double> getRecentMovementSpeeds() {
+        public DoubleRingBuffer getRecentMovementSpeeds() {
             return recentMovementSpeeds;
         }
         
         /**
          * Get the position history for this player
-         * @return List of recent positions
+         * @return Ring buffer of the last 10 positions
          */
-        public List<Vec3d> getPositionHistory() {
+        public Vec3RingBuffer getPositionHistory() {
             return positionHistory;
         }
-        
-        public void increaseIrregularMovementViolations() {
-            this.irregularMovementViolations++;
-            this.lastIrregularMovementViolationTime = System.currentTimeMillis();
-        }
-        
-        public void decreaseIrregularMovementViolations() {
-            if (this.irregularMovementViolations > 0) {
-                this.irregularMovementViolations--;
-            }
-        }
-        
-        public int getIrregularMovementViolations() {
-            return irregularMovementViolations;
-        }
-        
-        public long getLastIrregularMovementViolationTime() {
-            return lastIrregularMovementViolationTime;
-        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.minecraft.cheatdetector.data;
+
+import java.util.UUID;
+
+/**
+ * Immutable view of a player's detection state, published once per tick.
+ * Safe to read from commands, exporters and analysis threads without
+ * touching the live {@link PlayerDataManager.PlayerData}.
+ * 
+ * @param version Increases every time a changed state is published
+ * @param violationScores The violation levels as packed {@link DecayingScore}s by check type ordinal, never modified
+ * @param violationDecayMillis The time it takes a violation level to drop by one
+ */
+public record PlayerDataSnapshot(UUID uuid, String playerName, long version,
+                                 long[] violationScores, long violationDecayMillis,
+                                 int diamondsMined, int stoneMined, int attackCount) {
+    
+    /**
+     * Get a violation level as it has decayed by a given time.
+     * Levels keep decaying after the snapshot was published, so it stays current without republishing.
+     * @param type The check the level belongs to
+     * @param time The current time in milliseconds
+     * @return The decayed level
+     */
+    public int violationLevel(CheckType type, long time) {
+        return DecayingScore.score(violationScores[type.ordinal()], time, violationDecayMillis);
+    }
+}
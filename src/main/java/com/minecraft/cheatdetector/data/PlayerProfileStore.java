@@ -0,0 +1,241 @@
+package com.minecraft.cheatdetector.data;
+
+import com.minecraft.cheatdetector.CheatDetector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only store of binary player profiles.
+ * Every save appends a new record to a single file; an in-memory index points at
+ * the latest record of each player, so loading a profile is one positioned read.
+ * Superseded records are dropped by compacting the file when the store is opened.
+ *
+ * Record layout: int payload length, long UUID high bits, long UUID low bits, payload.
+ */
+public class PlayerProfileStore {
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES * 2;
+    private static final int MAX_PAYLOAD_SIZE = 1 << 20;
+    private static final long COMPACTION_MIN_SIZE = 1 << 20;
+    
+    private final Path file;
+    private final FileChannel channel;
+    
+    // Offset of the latest record of each player
+    private final Map<UUID, Long> index = new ConcurrentHashMap<>();
+    
+    // Saved payloads not yet written, so a quick relog never reads a stale record
+    private final Map<UUID, byte[]> pending = new ConcurrentHashMap<>();
+    
+    // Saves after closing are dropped rather than handed to the stopped writer
+    private volatile boolean closed;
+    
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CheatDetector-Profiles");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Open the store, creating the file if needed and compacting it if it holds many superseded records.
+     * @param file The profile file
+     * @throws IOException If the file cannot be opened
+     */
+    public PlayerProfileStore(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long liveBytes = buildIndex(opened);
+        
+        if (opened.size() > COMPACTION_MIN_SIZE && opened.size() > liveBytes * 2) {
+            opened = compact(opened);
+        }
+        this.channel = opened;
+    }
+    
+    /**
+     * Read the latest saved profile of a player.
+     * @param uuid The player's UUID
+     * @return The profile payload, or null if the player has none
+     */
+    public byte[] load(UUID uuid) {
+        byte[] unwritten = pending.get(uuid);
+        if (unwritten != null) {
+            return unwritten;
+        }
+        
+        Long offset = index.get(uuid);
+        if (offset == null) {
+            return null;
+        }
+        
+        try {
+            ByteBuffer header = readFully(channel, offset, HEADER_SIZE);
+            ByteBuffer payload = readFully(channel, offset + HEADER_SIZE, header.getInt());
+            return payload.array();
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to load profile of " + uuid + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Queue a profile to be appended to the store. Returns immediately.
+     * Profiles saved after the store was closed are dropped.
+     * @param uuid The player's UUID
+     * @param payload The encoded profile
+     */
+    public void save(UUID uuid, byte[] payload) {
+        if (closed) {
+            CheatDetector.LOGGER.warn("Profile store is closed, not saving profile of " + uuid);
+            return;
+        }
+        if (payload.length > MAX_PAYLOAD_SIZE) {
+            CheatDetector.LOGGER.error("Profile of " + uuid + " is too large to save: " + payload.length + " bytes");
+            return;
+        }
+        
+        pending.put(uuid, payload);
+        writer.execute(() -> append(uuid, payload));
+    }
+    
+    /**
+     * Write all queued profiles and close the store.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                CheatDetector.LOGGER.warn("Timed out writing player profiles, {} pending", pending.size());
+            }
+            channel.force(false);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to close profile store: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Append a record on the writer thread and point the index at it.
+     */
+    private void append(UUID uuid, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putLong(uuid.getMostSignificantBits());
+        record.putLong(uuid.getLeastSignificantBits());
+        record.put(payload);
+        record.flip();
+        
+        try {
+            long offset = channel.size();
+            long position = offset;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            index.put(uuid, offset);
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to save profile of " + uuid + ": " + e.getMessage());
+        } finally {
+            // Only forget the payload if no newer save replaced it meanwhile
+            pending.remove(uuid, payload);
+        }
+    }
+    
+    /**
+     * Scan the file and index the latest record of each player.
+     * A record cut short by a crash is truncated away.
+     * @return The number of bytes taken by the latest records
+     */
+    private long buildIndex(FileChannel channel) throws IOException {
+        Map<UUID, Integer> recordSizes = new HashMap<>();
+        long size = channel.size();
+        long position = 0;
+        
+        while (position + HEADER_SIZE <= size) {
+            ByteBuffer header = readFully(channel, position, HEADER_SIZE);
+            int length = header.getInt();
+            if (length < 0 || length > MAX_PAYLOAD_SIZE || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            
+            UUID uuid = new UUID(header.getLong(), header.getLong());
+            index.put(uuid, position);
+            recordSizes.put(uuid, HEADER_SIZE + length);
+            position += HEADER_SIZE + length;
+        }
+        
+        if (position < size) {
+            CheatDetector.LOGGER.warn("Truncating {} bytes of incomplete profile data", size - position);
+            channel.truncate(position);
+        }
+        
+        long liveBytes = 0;
+        for (int recordSize : recordSizes.values()) {
+            liveBytes += recordSize;
+        }
+        return liveBytes;
+    }
+    
+    /**
+     * Rewrite the file with only the latest record of each player.
+     * @return The channel of the compacted file
+     */
+    private FileChannel compact(FileChannel source) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<UUID, Long> compacted = new HashMap<>();
+        
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (Map.Entry<UUID, Long> entry : index.entrySet()) {
+                ByteBuffer header = readFully(source, entry.getValue(), HEADER_SIZE);
+                int recordSize = HEADER_SIZE + header.getInt();
+                ByteBuffer record = readFully(source, entry.getValue(), recordSize);
+                
+                compacted.put(entry.getKey(), position);
+                while (record.hasRemaining()) {
+                    position += target.write(record, position);
+                }
+            }
+            target.force(false);
+        }
+        
+        source.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index.putAll(compacted);
+        CheatDetector.LOGGER.info("Compacted player profile store to {} profiles", compacted.size());
+        
+        return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of profile file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
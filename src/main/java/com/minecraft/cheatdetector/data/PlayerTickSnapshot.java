@@ -0,0 +1,174 @@
+package com.minecraft.cheatdetector.data;
+
+import net.minecraft.entity.effect.StatusEffect;
+import net.minecraft.entity.effect.StatusEffectInstance;
+import net.minecraft.entity.effect.StatusEffects;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.UUID;
+
+/**
+ * Flat copy of the player entity state the detectors read, filled in a single
+ * pass over the entity once per tick and reused from tick to tick, so the
+ * detectors neither repeat the entity's lookups nor allocate for them.
+ * Effect levels are the amplifier plus one, or 0 when the effect is not active.
+ * Only used on the server thread; copy it into a
+ * {@link com.minecraft.cheatdetector.analysis.PlayerSample} to keep it.
+ */
+public class PlayerTickSnapshot {
+    private UUID playerUuid;
+    private double x;
+    private double y;
+    private double z;
+    private double velocityX;
+    private double velocityY;
+    private double velocityZ;
+    private boolean onGround;
+    private boolean sprinting;
+    private boolean touchingWater;
+    private boolean creative;
+    private boolean spectator;
+    private boolean allowFlying;
+    private boolean fallFlying;
+    private boolean riding;
+    private int speedLevel;
+    private int slownessLevel;
+    private int jumpBoostLevel;
+    private int levitationLevel;
+    private int slowFallingLevel;
+    private int latency;
+    
+    /**
+     * Overwrite the snapshot with the current state of a player.
+     * @param player The player to read
+     */
+    public void fill(ServerPlayerEntity player) {
+        playerUuid = player.getUuid();
+        x = player.getX();
+        y = player.getY();
+        z = player.getZ();
+        
+        Vec3d velocity = player.getVelocity();
+        velocityX = velocity.x;
+        velocityY = velocity.y;
+        velocityZ = velocity.z;
+        
+        onGround = player.isOnGround();
+        sprinting = player.isSprinting();
+        touchingWater = player.isTouchingWater();
+        creative = player.isCreative();
+        spectator = player.isSpectator();
+        allowFlying = player.getAbilities().allowFlying;
+        fallFlying = player.isFallFlying();
+        riding = player.hasVehicle();
+        latency = player.networkHandler != null ? player.networkHandler.getLatency() : 0;
+        
+        // One walk over the active effects instead of a map lookup per effect; usually there are none
+        speedLevel = 0;
+        slownessLevel = 0;
+        jumpBoostLevel = 0;
+        levitationLevel = 0;
+        slowFallingLevel = 0;
+        for (StatusEffectInstance effect : player.getStatusEffects()) {
+            RegistryEntry<StatusEffect> type = effect.getEffectType();
+            int level = effect.getAmplifier() + 1;
+            if (type == StatusEffects.SPEED) {
+                speedLevel = level;
+            } else if (type == StatusEffects.SLOWNESS) {
+                slownessLevel = level;
+            } else if (type == StatusEffects.JUMP_BOOST) {
+                jumpBoostLevel = level;
+            } else if (type == StatusEffects.LEVITATION) {
+                levitationLevel = level;
+            } else if (type == StatusEffects.SLOW_FALLING) {
+                slowFallingLevel = level;
+            }
+        }
+    }
+    
+    public UUID getPlayerUuid() {
+        return playerUuid;
+    }
+    
+    public double getX() {
+        return x;
+    }
+    
+    public double getY() {
+        return y;
+    }
+    
+    public double getZ() {
+        return z;
+    }
+    
+    public double getVelocityX() {
+        return velocityX;
+    }
+    
+    public double getVelocityY() {
+        return velocityY;
+    }
+    
+    public double getVelocityZ() {
+        return velocityZ;
+    }
+    
+    public boolean isOnGround() {
+        return onGround;
+    }
+    
+    public boolean isSprinting() {
+        return sprinting;
+    }
+    
+    public boolean isTouchingWater() {
+        return touchingWater;
+    }
+    
+    public boolean isCreative() {
+        return creative;
+    }
+    
+    public boolean isSpectator() {
+        return spectator;
+    }
+    
+    public boolean isAllowFlying() {
+        return allowFlying;
+    }
+    
+    public boolean isFallFlying() {
+        return fallFlying;
+    }
+    
+    public boolean isRiding() {
+        return riding;
+    }
+    
+    public int getSpeedLevel() {
+        return speedLevel;
+    }
+    
+    public int getSlownessLevel() {
+        return slownessLevel;
+    }
+    
+    public int getJumpBoostLevel() {
+        return jumpBoostLevel;
+    }
+    
+    public int getLevitationLevel() {
+        return levitationLevel;
+    }
+    
+    public int getSlowFallingLevel() {
+        return slowFallingLevel;
+    }
+    
+    public int getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,142 @@
+package com.minecraft.cheatdetector.data;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Sliding window of the entities a player attacked over the last 2 seconds,
+ * split into 20 buckets of 100ms. Each bucket holds a small open-addressing set
+ * of target keys and is reused as soon as its 100ms slot comes round again, so
+ * memory is bounded and old attacks expire without any pruning.
+ * Recording and counting never allocate.
+ */
+public class RecentTargetWindow {
+    private static final int BUCKETS = 20;
+    private static final long BUCKET_MILLIS = 100;
+    // Targets kept per bucket; more distinct targets within 100ms are not counted
+    private static final int SLOTS = 16;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int SCRATCH_SLOTS = 512;
+    private static final int SCRATCH_MASK = SCRATCH_SLOTS - 1;
+    // Keys are never 0, so 0 marks an empty slot
+    private static final int EMPTY = 0;
+    
+    private final int[] keys = new int[BUCKETS * SLOTS];
+    private final int[] sizes = new int[BUCKETS];
+    private final long[] epochs = new long[BUCKETS];
+    
+    // Set used to merge the buckets when counting; a slot is only in use if its generation matches
+    private final int[] scratchKeys = new int[SCRATCH_SLOTS];
+    private final int[] scratchGenerations = new int[SCRATCH_SLOTS];
+    private int generation;
+    
+    /**
+     * Create an empty window.
+     */
+    public RecentTargetWindow() {
+        Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+    
+    /**
+     * Record an attack on an entity.
+     * @param target The UUID of the attacked entity
+     * @param time The time of the attack in milliseconds
+     */
+    public void add(UUID target, long time) {
+        long epoch = Math.floorDiv(time, BUCKET_MILLIS);
+        int bucket = (int) Math.floorMod(epoch, (long) BUCKETS);
+        if (epochs[bucket] != epoch) {
+            // The slot last held an older 100ms, reuse it
+            epochs[bucket] = epoch;
+            sizes[bucket] = 0;
+            Arrays.fill(keys, bucket * SLOTS, (bucket + 1) * SLOTS, EMPTY);
+        }
+        
+        if (sizes[bucket] == SLOTS) {
+            return;
+        }
+        
+        int key = keyOf(target);
+        int base = bucket * SLOTS;
+        for (int i = mix(key) & SLOT_MASK; ; i = (i + 1) & SLOT_MASK) {
+            int existing = keys[base + i];
+            if (existing == key) {
+                return;
+            }
+            if (existing == EMPTY) {
+                keys[base + i] = key;
+                sizes[bucket]++;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Count the distinct entities attacked over the last 2 seconds.
+     * @param time The current time in milliseconds
+     * @return The number of distinct targets
+     */
+    public int countDistinct(long time) {
+        long newest = Math.floorDiv(time, BUCKET_MILLIS);
+        long oldest = newest - BUCKETS + 1;
+        
+        generation++;
+        int count = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (epochs[bucket] < oldest || epochs[bucket] > newest || sizes[bucket] == 0) {
+                continue;
+            }
+            
+            int base = bucket * SLOTS;
+            for (int i = 0; i < SLOTS; i++) {
+                int key = keys[base + i];
+                if (key != EMPTY && addToScratch(key)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Forget all attacks.
+     */
+    public void clear() {
+        Arrays.fill(epochs, Long.MIN_VALUE);
+        Arrays.fill(sizes, 0);
+    }
+    
+    /**
+     * Add a key to the merge set of the current count.
+     * @param key The key to add
+     * @return Whether the key was not in the set yet
+     */
+    private boolean addToScratch(int key) {
+        for (int i = mix(key) & SCRATCH_MASK; ; i = (i + 1) & SCRATCH_MASK) {
+            if (scratchGenerations[i] != generation) {
+                scratchGenerations[i] = generation;
+                scratchKeys[i] = key;
+                return true;
+            }
+            if (scratchKeys[i] == key) {
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Fold a UUID into a non-zero key. Distinct targets colliding on a key are
+     * counted once, which only makes the count more lenient.
+     * @param uuid The UUID
+     * @return The key
+     */
+    private static int keyOf(UUID uuid) {
+        int key = uuid.hashCode();
+        return key == EMPTY ? 1 : key;
+    }
+    
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
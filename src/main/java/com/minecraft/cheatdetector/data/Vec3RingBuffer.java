@@ -0,0 +1,91 @@
+package com.minecraft.cheatdetector.data;
+
+/**
+ * Fixed-capacity ring buffer of positions stored as separate x, y and z arrays.
+ * Once full, each new position replaces the oldest one. Adding a position never allocates.
+ */
+public class Vec3RingBuffer {
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private int head;
+    private int size;
+    
+    /**
+     * Create an empty ring buffer.
+     * @param capacity The maximum number of positions kept
+     */
+    public Vec3RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.zs = new double[capacity];
+    }
+    
+    /**
+     * Add a position, evicting the oldest one if the buffer is full.
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     */
+    public void add(double x, double y, double z) {
+        xs[head] = x;
+        ys[head] = y;
+        zs[head] = z;
+        
+        head++;
+        if (head == xs.length) {
+            head = 0;
+        }
+        if (size < xs.length) {
+            size++;
+        }
+    }
+    
+    public double getX(int index) {
+        return xs[slot(index)];
+    }
+    
+    public double getY(int index) {
+        return ys[slot(index)];
+    }
+    
+    public double getZ(int index) {
+        return zs[slot(index)];
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return xs.length;
+    }
+    
+    /**
+     * Remove all positions.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+    
+    /**
+     * Map an age index to an array slot.
+     * @param index 0 for the oldest position, size() - 1 for the newest
+     * @return The array slot
+     */
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int start = head - size;
+        if (start < 0) {
+            start += xs.length;
+        }
+        int slot = start + index;
+        return slot >= xs.length ? slot - xs.length : slot;
+    }
+}
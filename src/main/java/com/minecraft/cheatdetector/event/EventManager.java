@@ -1,23 +1,42 @@
 package com.minecraft.cheatdetector.event;
 
 import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.cheat.CombatHackDetector;
+import com.minecraft.cheatdetector.cheat.DetectorInput;
+import com.minecraft.cheatdetector.cheat.DetectorRegistry;
+import com.minecraft.cheatdetector.cheat.PlayerContext;
+import com.minecraft.cheatdetector.data.BlockClassifier;
 import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.metrics.PerfMetric;
+import com.minecraft.cheatdetector.metrics.PerfMonitor;
 import net.fabricmc.fabric.api.event.player.AttackEntityCallback;
 import net.fabricmc.fabric.api.event.player.PlayerBlockBreakEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.ActionResult;
 
+import java.util.UUID;
+
 /**
  * Manages event registration and handling for the anti-cheat system.
  */
 public class EventManager {
+    private final PerfMetric joinMetric;
+    private final PerfMetric disconnectMetric;
+    private final PerfMetric blockBreakMetric;
+    private final PerfMetric attackMetric;
     
     /**
      * Create and initialize the event manager.
+     * @param perfMonitor The monitor timing the event handlers
      */
-    public EventManager() {
+    public EventManager(PerfMonitor perfMonitor) {
+        this.joinMetric = perfMonitor.metric("event.join");
+        this.disconnectMetric = perfMonitor.metric("event.disconnect");
+        this.blockBreakMetric = perfMonitor.metric("event.blockBreak");
+        this.attackMetric = perfMonitor.metric("event.attack");
         registerEvents();
     }
     
@@ -41,27 +60,38 @@ public class EventManager {
     private void registerPlayerConnectionEvents() {
         // Player join event
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
-            CheatDetector.LOGGER.info("Player joined: {}", handler.getPlayer().getName().getString());
-            
-            // Initialize player data when a player joins
-            ServerPlayerEntity player = handler.getPlayer();
-            CheatDetector.getInstance().getPlayerDataManager().getPlayerData(player);
-            
-            // Send welcome message
-            // No welcome message needed for our anti-cheat
+            joinMetric.begin();
+            try {
+                CheatDetector.LOGGER.info("Player joined: {}", handler.getPlayer().getName().getString());
+                
+                // Initialize player data when a player joins
+                ServerPlayerEntity player = handler.getPlayer();
+                CheatDetector.getInstance().getPlayerDataManager().getPlayerData(player);
+                
+                // Send welcome message
+                // No welcome message needed for our anti-cheat
+            } finally {
+                joinMetric.end();
+            }
         });
         
         // Player leave event
         ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
-            CheatDetector.LOGGER.info("Player left: {}", handler.getPlayer().getName().getString());
-            
-            // Clean up player data when a player leaves
-            ServerPlayerEntity player = handler.getPlayer();
-            UUID playerUuid = player.getUuid();
-            PlayerDataManager playerDataManager = CheatDetector.getInstance().getPlayerDataManager();
-            
-            // Remove player data to prevent memory leaks
-            playerDataManager.removePlayerData(playerUuid);
+            disconnectMetric.begin();
+            try {
+                CheatDetector.LOGGER.info("Player left: {}", handler.getPlayer().getName().getString());
+                
+                // Clean up player data when a player leaves
+                ServerPlayerEntity player = handler.getPlayer();
+                UUID playerUuid = player.getUuid();
+                PlayerDataManager playerDataManager = CheatDetector.getInstance().getPlayerDataManager();
+                
+                // Remove player data to prevent memory leaks
+                playerDataManager.removePlayerData(playerUuid);
+                CheatDetector.getInstance().getDetectorRegistry().remove(playerUuid);
+            } finally {
+                disconnectMetric.end();
+            }
         });
     }
     
@@ -71,28 +101,37 @@ public class EventManager {
     private void registerBlockBreakEvents() {
         // Register block break event
         PlayerBlockBreakEvents.AFTER.register((world, player, pos, state, blockEntity) -> {
-            // Skip if not on the server or if player is not a server player
-            if (world.isClient() || !(player instanceof ServerPlayerEntity)) {
-                return;
+            blockBreakMetric.begin();
+            try {
+                // Skip if not on the server or if player is not a server player
+                if (world.isClient() || !(player instanceof ServerPlayerEntity)) {
+                    return;
+                }
+                
+                ServerPlayerEntity serverPlayer = (ServerPlayerEntity) player;
+                DetectorRegistry registry = CheatDetector.getInstance().getDetectorRegistry();
+                PlayerContext context = registry.getContext(serverPlayer);
+                
+                // Skip if the player has permission to bypass anti-cheat
+                if (context.hasAnyState(PlayerContext.STATE_BYPASS)) {
+                    return;
+                }
+                
+                // Classify the block by its raw id, without any string work
+                BlockClassifier classifier = CheatDetector.getInstance().getBlockClassifier();
+                int rawId = classifier.getRawId(state);
+                
+                // Track mined blocks in player data
+                PlayerDataManager.PlayerData playerData = context.getData();
+                byte category = classifier.classify(rawId);
+                playerData.addMinedBlock(rawId, category);
+                
+                // Note how ores were found and queue the player; the verdict is reached on the next X-ray pass
+                CheatDetector.getInstance().getXrayDetector().onBlockMined(playerData, (ServerWorld) world, pos, category);
+                registry.markChanged(context, DetectorInput.MINING);
+            } finally {
+                blockBreakMetric.end();
             }
-            
-            ServerPlayerEntity serverPlayer = (ServerPlayerEntity) player;
-            
-            // Skip if the player has permission to bypass anti-cheat
-            if (serverPlayer.hasPermissionLevel(
-                    CheatDetector.getInstance().getConfig().getBypassPermissionLevel())) {
-                return;
-            }
-            
-            // Get block ID for tracking
-            String blockId = state.getBlock().toString();
-            
-            // Track mined blocks in player data
-            PlayerDataManager.PlayerData playerData = 
-                    CheatDetector.getInstance().getPlayerDataManager().getPlayerData(serverPlayer);
-            playerData.addMinedBlock(blockId);
-            
-            // X-ray detection is done periodically in the XrayDetector class
         });
     }
     
@@ -102,28 +141,43 @@ public class EventManager {
     private void registerAttackEvents() {
         // Register attack event
         AttackEntityCallback.EVENT.register((player, world, hand, entity, hitResult) -> {
-            // Skip if not on the server or if player is not a server player
-            if (world.isClient() || !(player instanceof ServerPlayerEntity)) {
-                return ActionResult.PASS;
-            }
-            
-            ServerPlayerEntity serverPlayer = (ServerPlayerEntity) player;
-            
-            // Skip if the player has permission to bypass anti-cheat
-            if (serverPlayer.hasPermissionLevel(
-                    CheatDetector.getInstance().getConfig().getBypassPermissionLevel())) {
+            attackMetric.begin();
+            try {
+                // Skip if not on the server or if player is not a server player
+                if (world.isClient() || !(player instanceof ServerPlayerEntity)) {
+                    return ActionResult.PASS;
+                }
+                
+                ServerPlayerEntity serverPlayer = (ServerPlayerEntity) player;
+                
+                // Attacks arrive between ticks, so time them now rather than at the start of the tick
+                long attackTime = CheatDetector.getInstance().getClock().currentMillis();
+                
+                // Traces keep every attack so replays see the same input as the live server
+                CheatDetector.getInstance().getTraceRecorder().recordAttack(serverPlayer, entity, attackTime);
+                
+                // Skip if the player has permission to bypass anti-cheat
+                DetectorRegistry registry = CheatDetector.getInstance().getDetectorRegistry();
+                PlayerContext context = registry.getContext(serverPlayer);
+                if (context.hasAnyState(PlayerContext.STATE_BYPASS)) {
+                    return ActionResult.PASS;
+                }
+                
+                // Record the mobs around the attacker from now on and check the hit against the rewound target
+                CheatDetector.getInstance().getLagCompensator().markCombatant(serverPlayer, 
+                        CheatDetector.getInstance().getClock().getTick());
+                CombatHackDetector combatHackDetector = CheatDetector.getInstance().getCombatHackDetector();
+                combatHackDetector.checkReach(context, entity, attackTime);
+                
+                // Record the attack and check its timing and direction
+                combatHackDetector.checkKillAura(context, entity, attackTime);
+                registry.markChanged(context, DetectorInput.COMBAT);
+                
+                // Allow the attack to proceed
                 return ActionResult.PASS;
+            } finally {
+                attackMetric.end();
             }
-            
-            // Record the attack in player data
-            PlayerDataManager.PlayerData playerData = 
-                    CheatDetector.getInstance().getPlayerDataManager().getPlayerData(serverPlayer);
-            playerData.recordAttack(entity.getUuid());
-            
-            // KillAura and Reach detection is handled in their respective detector classes
-            
-            // Allow the attack to proceed
-            return ActionResult.PASS;
         });
     }
 } 
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.minecraft.cheatdetector.lagcomp;
+
+import com.minecraft.cheatdetector.config.ModConfig;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.TypeFilter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the recent hitboxes of every player, and of the mobs around players
+ * who are fighting, so attacks can be checked against where the target was on
+ * the attacker's screen rather than where it is on the server.
+ * Histories are pooled and reused, so recording allocates nothing once warmed up.
+ * Only used on the server thread.
+ */
+public class LagCompensator {
+    private static final int TICK_MILLIS = 50;
+    // How long a player counts as fighting after their last attack
+    private static final int COMBAT_WINDOW_TICKS = 200;
+    // Radius around fighting players in which mobs are recorded
+    private static final double COMBAT_RADIUS = 8.0;
+    private static final int MAX_MOBS_PER_COMBATANT = 64;
+    private static final int EVICT_INTERVAL_TICKS = 20;
+    // Ticks of latency history used to estimate the attacker's round trip
+    private static final int LATENCY_WINDOW_TICKS = 20;
+    
+    private static final TypeFilter<Entity, LivingEntity> LIVING = TypeFilter.instanceOf(LivingEntity.class);
+    private static final Predicate<LivingEntity> NOT_PLAYER = entity -> !(entity instanceof PlayerEntity) && entity.isAlive();
+    
+    private final ModConfig config;
+    private final Int2ObjectOpenHashMap<PositionHistory> histories = new Int2ObjectOpenHashMap<>();
+    private final ArrayDeque<PositionHistory> pool = new ArrayDeque<>();
+    private final Int2LongOpenHashMap combatants = new Int2LongOpenHashMap();
+    private final List<LivingEntity> nearby = new ArrayList<>();
+    
+    /**
+     * Create a new lag compensator.
+     * @param config The mod configuration
+     */
+    public LagCompensator(ModConfig config) {
+        this.config = config;
+        this.combatants.defaultReturnValue(Long.MIN_VALUE);
+    }
+    
+    /**
+     * Mark a player as fighting, so the mobs around them are recorded too.
+     * @param player The attacking player
+     * @param tick The current server tick
+     */
+    public void markCombatant(ServerPlayerEntity player, long tick) {
+        combatants.put(player.getId(), tick);
+    }
+    
+    /**
+     * Record the hitboxes of all players and of the mobs around fighting players.
+     * Called at the end of every server tick.
+     * @param server The server
+     * @param tick The current server tick
+     */
+    public void recordTick(MinecraftServer server, long tick) {
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            record(player, tick, player.networkHandler.getLatency());
+            
+            if (combatants.get(player.getId()) < tick - COMBAT_WINDOW_TICKS) {
+                continue;
+            }
+            
+            nearby.clear();
+            player.getWorld().collectEntitiesByType(LIVING, player.getBoundingBox().expand(COMBAT_RADIUS),
+                    NOT_PLAYER, nearby, MAX_MOBS_PER_COMBATANT);
+            for (int i = 0; i < nearby.size(); i++) {
+                LivingEntity entity = nearby.get(i);
+                // Mobs near several fighting players are only recorded once
+                if (histories.containsKey(entity.getId()) && histories.get(entity.getId()).getLastTick() == tick) {
+                    continue;
+                }
+                record(entity, tick, -1);
+            }
+        }
+        nearby.clear();
+        
+        if (tick % EVICT_INTERVAL_TICKS == 0) {
+            evict(tick);
+        }
+    }
+    
+    /**
+     * Get the squared distance from the attacker's eyes to the target's hitbox as
+     * the attacker saw it. The attacker's screen runs behind the server by their
+     * round trip plus the client's interpolation of entity movement, so every
+     * recorded tick the attacker could have been looking at is considered and the
+     * closest one wins.
+     * @param attacker The attacking player
+     * @param target The attacked entity
+     * @param tick The current server tick
+     * @return The squared distance, or NaN if the target has no recorded positions in that range
+     */
+    public double squaredDistanceAtClientTick(ServerPlayerEntity attacker, Entity target, long tick) {
+        PositionHistory targetHistory = histories.get(target.getId());
+        if (targetHistory == null) {
+            return Double.NaN;
+        }
+        
+        int minLatency = attacker.networkHandler.getLatency();
+        int maxLatency = minLatency;
+        PositionHistory attackerHistory = histories.get(attacker.getId());
+        if (attackerHistory != null && attackerHistory.getMinLatency(LATENCY_WINDOW_TICKS) >= 0) {
+            minLatency = Math.min(minLatency, attackerHistory.getMinLatency(LATENCY_WINDOW_TICKS));
+            maxLatency = Math.max(maxLatency, attackerHistory.getMaxLatency(LATENCY_WINDOW_TICKS));
+        }
+        
+        int maxRewind = Math.min(config.getLagCompensationMaxRewindTicks(), PositionHistory.CAPACITY - 1);
+        long newest = tick - minLatency / TICK_MILLIS;
+        long oldest = tick - (maxLatency + TICK_MILLIS - 1) / TICK_MILLIS - config.getLagCompensationInterpolationTicks() - 1;
+        oldest = Math.max(oldest, tick - maxRewind);
+        newest = Math.max(newest, oldest);
+        
+        return targetHistory.squaredDistanceTo(oldest, newest, attacker.getX(), attacker.getEyeY(), attacker.getZ());
+    }
+    
+    /**
+     * Drop all recorded positions, as when the server stops.
+     */
+    public void clear() {
+        for (PositionHistory history : histories.values()) {
+            pool.push(history);
+        }
+        histories.clear();
+        combatants.clear();
+    }
+    
+    private void record(Entity entity, long tick, int latency) {
+        PositionHistory history = histories.get(entity.getId());
+        if (history == null) {
+            history = pool.isEmpty() ? new PositionHistory() : pool.pop();
+            history.reset(entity.getId());
+            histories.put(entity.getId(), history);
+        }
+        history.record(tick, entity.getBoundingBox(), latency);
+    }
+    
+    private void evict(long tick) {
+        ObjectIterator<Int2ObjectMap.Entry<PositionHistory>> iterator = histories.int2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            PositionHistory history = iterator.next().getValue();
+            if (tick - history.getLastTick() > PositionHistory.CAPACITY) {
+                iterator.remove();
+                pool.push(history);
+            }
+        }
+        
+        ObjectIterator<Int2LongMap.Entry> combatIterator = combatants.int2LongEntrySet().fastIterator();
+        while (combatIterator.hasNext()) {
+            if (combatIterator.next().getLongValue() < tick - COMBAT_WINDOW_TICKS) {
+                combatIterator.remove();
+            }
+        }
+    }
+}
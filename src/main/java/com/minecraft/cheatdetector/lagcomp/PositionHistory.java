@@ -0,0 +1,121 @@
+package com.minecraft.cheatdetector.lagcomp;
+
+import net.minecraft.util.math.Box;
+
+/**
+ * Hitboxes of one entity over its most recent ticks, and for players also
+ * their latency, in a fixed ring of primitive arrays. Instances are pooled
+ * and reused for other entities, so recording never allocates.
+ */
+public class PositionHistory {
+    static final int CAPACITY = 32;
+    private static final int MASK = CAPACITY - 1;
+    
+    private final long[] ticks = new long[CAPACITY];
+    private final double[] minX = new double[CAPACITY];
+    private final double[] minY = new double[CAPACITY];
+    private final double[] minZ = new double[CAPACITY];
+    private final double[] maxX = new double[CAPACITY];
+    private final double[] maxY = new double[CAPACITY];
+    private final double[] maxZ = new double[CAPACITY];
+    private final int[] latencies = new int[CAPACITY];
+    
+    private int entityId;
+    private int size;
+    private long lastTick = Long.MIN_VALUE;
+    
+    /**
+     * Clear the history and assign it to an entity.
+     * @param entityId The network id of the entity
+     */
+    void reset(int entityId) {
+        this.entityId = entityId;
+        this.size = 0;
+        this.lastTick = Long.MIN_VALUE;
+    }
+    
+    /**
+     * Record the entity's hitbox for a tick. Ticks must be recorded in increasing order.
+     * @param tick The server tick
+     * @param box The entity's hitbox at the end of the tick
+     * @param latency The player's latency in milliseconds, or -1 for other entities
+     */
+    void record(long tick, Box box, int latency) {
+        int slot = (int) (tick & MASK);
+        ticks[slot] = tick;
+        minX[slot] = box.minX;
+        minY[slot] = box.minY;
+        minZ[slot] = box.minZ;
+        maxX[slot] = box.maxX;
+        maxY[slot] = box.maxY;
+        maxZ[slot] = box.maxZ;
+        latencies[slot] = latency;
+        lastTick = tick;
+        size = Math.min(size + 1, CAPACITY);
+    }
+    
+    /**
+     * Get the smallest squared distance from a point to the recorded hitboxes within a range of ticks.
+     * @param fromTick The first tick of the range
+     * @param toTick The last tick of the range
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     * @param z The z coordinate of the point
+     * @return The squared distance, or NaN if no tick in the range was recorded
+     */
+    double squaredDistanceTo(long fromTick, long toTick, double x, double y, double z) {
+        double best = Double.NaN;
+        for (long tick = Math.max(fromTick, lastTick - CAPACITY + 1); tick <= Math.min(toTick, lastTick); tick++) {
+            int slot = (int) (tick & MASK);
+            if (ticks[slot] != tick) {
+                continue;
+            }
+            
+            double dx = Math.max(Math.max(minX[slot] - x, 0), x - maxX[slot]);
+            double dy = Math.max(Math.max(minY[slot] - y, 0), y - maxY[slot]);
+            double dz = Math.max(Math.max(minZ[slot] - z, 0), z - maxZ[slot]);
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (!(distance >= best)) {
+                best = distance;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Get the lowest latency recorded over the most recent ticks.
+     * @param count The number of ticks to look back
+     * @return The latency in milliseconds, or -1 if none was recorded
+     */
+    int getMinLatency(int count) {
+        int min = -1;
+        for (int i = 0; i < Math.min(count, size); i++) {
+            int latency = latencies[(int) ((lastTick - i) & MASK)];
+            if (latency >= 0 && (min < 0 || latency < min)) {
+                min = latency;
+            }
+        }
+        return min;
+    }
+    
+    /**
+     * Get the highest latency recorded over the most recent ticks.
+     * @param count The number of ticks to look back
+     * @return The latency in milliseconds, or -1 if none was recorded
+     */
+    int getMaxLatency(int count) {
+        int max = -1;
+        for (int i = 0; i < Math.min(count, size); i++) {
+            max = Math.max(max, latencies[(int) ((lastTick - i) & MASK)]);
+        }
+        return max;
+    }
+    
+    int getEntityId() {
+        return entityId;
+    }
+    
+    long getLastTick() {
+        return lastTick;
+    }
+}
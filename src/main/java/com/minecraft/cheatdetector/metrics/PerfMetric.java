@@ -0,0 +1,147 @@
+package com.minecraft.cheatdetector.metrics;
+
+/**
+ * Timing and allocation statistics of one instrumented code path.
+ * Values are kept in 10-second intervals covering the last ten minutes, so
+ * any window up to ten minutes can be summarized without decaying averages.
+ * Only used on the server thread; a path must not time itself recursively.
+ */
+public class PerfMetric {
+    static final long INTERVAL_NANOS = 10_000_000_000L;
+    static final int INTERVALS = 60;
+    
+    private final String name;
+    private final PerfMonitor monitor;
+    private final Interval[] intervals = new Interval[INTERVALS];
+    private long invocations;
+    
+    // State of the invocation being timed
+    private boolean running;
+    private long startNanos;
+    private long startAllocatedBytes;
+    
+    PerfMetric(String name, PerfMonitor monitor) {
+        this.name = name;
+        this.monitor = monitor;
+        for (int i = 0; i < INTERVALS; i++) {
+            intervals[i] = new Interval();
+        }
+    }
+    
+    /**
+     * Start timing an invocation. Does nothing while monitoring is disabled.
+     */
+    public void begin() {
+        if (!monitor.isEnabled()) {
+            return;
+        }
+        running = true;
+        startAllocatedBytes = PerfMonitor.currentThreadAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+    
+    /**
+     * Finish timing the invocation started by the last call to {@link #begin()}.
+     */
+    public void end() {
+        if (!running) {
+            return;
+        }
+        long now = System.nanoTime();
+        running = false;
+        record(now - startNanos, PerfMonitor.currentThreadAllocatedBytes() - startAllocatedBytes, now);
+    }
+    
+    /**
+     * Record an invocation timed elsewhere.
+     * @param durationNanos The duration of the invocation
+     * @param allocatedBytes The bytes allocated by the invocation
+     * @param nowNanos The current {@link System#nanoTime()}
+     */
+    public void record(long durationNanos, long allocatedBytes, long nowNanos) {
+        long epoch = nowNanos / INTERVAL_NANOS;
+        Interval interval = intervals[(int) Math.floorMod(epoch, (long) INTERVALS)];
+        if (interval.epoch != epoch) {
+            interval.reset(epoch);
+        }
+        
+        interval.histogram.record(durationNanos);
+        interval.totalNanos += durationNanos;
+        interval.allocatedBytes += Math.max(0, allocatedBytes);
+        invocations++;
+    }
+    
+    /**
+     * Summarize the most recent invocations.
+     * @param windowNanos The length of the window, rounded up to whole 10-second intervals
+     * @param nowNanos The current {@link System#nanoTime()}
+     * @return The summary of the window
+     */
+    public WindowStats summarize(long windowNanos, long nowNanos) {
+        long currentEpoch = nowNanos / INTERVAL_NANOS;
+        int windowIntervals = (int) Math.min(INTERVALS, Math.max(1, (windowNanos + INTERVAL_NANOS - 1) / INTERVAL_NANOS));
+        
+        LatencyHistogram merged = new LatencyHistogram();
+        long totalNanos = 0;
+        long allocatedBytes = 0;
+        for (Interval interval : intervals) {
+            if (interval.epoch > currentEpoch - windowIntervals && interval.epoch <= currentEpoch) {
+                merged.add(interval.histogram);
+                totalNanos += interval.totalNanos;
+                allocatedBytes += interval.allocatedBytes;
+            }
+        }
+        
+        long count = merged.getCount();
+        return new WindowStats(count,
+                merged.getValueAtPercentile(50), merged.getValueAtPercentile(99), merged.getMax(),
+                count > 0 ? totalNanos / count : 0, totalNanos, allocatedBytes);
+    }
+    
+    /**
+     * Get the name of the instrumented path.
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Get the number of invocations recorded since startup.
+     * @return The invocation count
+     */
+    public long getInvocations() {
+        return invocations;
+    }
+    
+    /**
+     * Summary of the invocations within a window.
+     * @param count The number of invocations
+     * @param p50Nanos The median duration
+     * @param p99Nanos The 99th percentile duration
+     * @param maxNanos The longest duration
+     * @param meanNanos The mean duration
+     * @param totalNanos The summed duration
+     * @param allocatedBytes The bytes allocated by all invocations
+     */
+    public record WindowStats(long count, long p50Nanos, long p99Nanos, long maxNanos, long meanNanos,
+                              long totalNanos, long allocatedBytes) {
+    }
+    
+    /**
+     * Values recorded during one 10-second interval.
+     */
+    private static final class Interval {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long epoch = Long.MIN_VALUE;
+        private long totalNanos;
+        private long allocatedBytes;
+        
+        private void reset(long epoch) {
+            this.epoch = epoch;
+            histogram.clear();
+            totalNanos = 0;
+            allocatedBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.minecraft.cheatdetector.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.config.ModConfig;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the performance metrics of the detectors, event handlers and violation logging.
+ * Metrics are recorded and summarized on the server thread; exported files are
+ * written by a background thread.
+ */
+public class PerfMonitor {
+    public static final long ONE_MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    public static final long TEN_MINUTES_NANOS = TimeUnit.MINUTES.toNanos(10);
+    
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+    
+    private final ModConfig config;
+    private final Map<String, PerfMetric> metrics = new LinkedHashMap<>();
+    private final ExecutorService exporter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CheatDetector-Perf");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Create a new performance monitor.
+     * @param config The mod configuration
+     */
+    public PerfMonitor(ModConfig config) {
+        this.config = config;
+    }
+    
+    /**
+     * Get the metric with the given name, creating it if needed.
+     * @param name The name of the instrumented path
+     * @return The metric
+     */
+    public PerfMetric metric(String name) {
+        return metrics.computeIfAbsent(name, key -> new PerfMetric(key, this));
+    }
+    
+    /**
+     * Get all metrics in the order they were created.
+     * @return The metrics
+     */
+    public List<PerfMetric> getMetrics() {
+        return new ArrayList<>(metrics.values());
+    }
+    
+    /**
+     * Check if timing is enabled.
+     * @return true if invocations are being timed
+     */
+    public boolean isEnabled() {
+        return config.isPerfMonitoring();
+    }
+    
+    /**
+     * Write the current 1-minute and 10-minute summaries of every metric to a JSON file.
+     * The summaries are taken on the calling thread; the file is written in the background
+     * and replaced atomically, so readers never see a partial file.
+     * @param file The file to write
+     */
+    public void export(Path file) {
+        String json = toJson(System.nanoTime());
+        exporter.execute(() -> {
+            try {
+                Path directory = file.toAbsolutePath().getParent();
+                Files.createDirectories(directory);
+                Path temp = directory.resolve(file.getFileName() + ".tmp");
+                Files.writeString(temp, json, StandardCharsets.UTF_8);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                CheatDetector.LOGGER.error("Failed to export performance metrics: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Stop the export thread, waiting briefly for a pending export.
+     */
+    public void shutdown() {
+        exporter.shutdown();
+        try {
+            exporter.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Get the bytes allocated by the current thread so far.
+     * @return The allocated bytes, or 0 if the JVM cannot measure them
+     */
+    static long currentThreadAllocatedBytes() {
+        return ALLOCATION_BEAN != null ? ALLOCATION_BEAN.getCurrentThreadAllocatedBytes() : 0;
+    }
+    
+    private String toJson(long nowNanos) {
+        JsonObject root = new JsonObject();
+        root.addProperty("timestamp", Instant.now().toString());
+        root.addProperty("allocationTracking", ALLOCATION_BEAN != null);
+        
+        JsonArray entries = new JsonArray();
+        for (PerfMetric metric : metrics.values()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("name", metric.getName());
+            entry.addProperty("invocations", metric.getInvocations());
+            
+            JsonObject windows = new JsonObject();
+            windows.add("1m", toJson(metric.summarize(ONE_MINUTE_NANOS, nowNanos)));
+            windows.add("10m", toJson(metric.summarize(TEN_MINUTES_NANOS, nowNanos)));
+            entry.add("windows", windows);
+            entries.add(entry);
+        }
+        root.add("metrics", entries);
+        
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        return gson.toJson(root);
+    }
+    
+    private static JsonObject toJson(PerfMetric.WindowStats stats) {
+        JsonObject window = new JsonObject();
+        window.addProperty("count", stats.count());
+        window.addProperty("p50Nanos", stats.p50Nanos());
+        window.addProperty("p99Nanos", stats.p99Nanos());
+        window.addProperty("maxNanos", stats.maxNanos());
+        window.addProperty("meanNanos", stats.meanNanos());
+        window.addProperty("totalNanos", stats.totalNanos());
+        window.addProperty("allocatedBytes", stats.allocatedBytes());
+        return window;
+    }
+    
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean allocationBean
+                && allocationBean.isThreadAllocatedMemorySupported()) {
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+            return allocationBean;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.minecraft.cheatdetector.mixin;
+
+import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.movement.MovementQueue;
+import com.minecraft.cheatdetector.movement.MovementSource;
+import net.minecraft.network.packet.c2s.play.PlayerMoveC2SPacket;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Captures movement packets into the connection's movement queue as they arrive.
+ */
+@Mixin(ServerPlayNetworkHandler.class)
+public abstract class ServerPlayNetworkHandlerMixin implements MovementSource {
+    @Shadow
+    public ServerPlayerEntity player;
+    
+    @Unique
+    private final MovementQueue cheatdetector$movementQueue = new MovementQueue();
+    
+    @Override
+    public MovementQueue cheatdetector$getMovementQueue() {
+        return cheatdetector$movementQueue;
+    }
+    
+    @Inject(method = "onPlayerMove", at = @At("HEAD"))
+    private void cheatdetector$captureMove(PlayerMoveC2SPacket packet, CallbackInfo ci) {
+        // The handler runs on the network thread first and is then rerun on the server thread;
+        // only the first run sees the true arrival time
+        MinecraftServer server = player.getServer();
+        if (server == null || server.isOnThread()) {
+            return;
+        }
+        
+        boolean hasPosition = packet.changesPosition();
+        double x = packet.getX(0);
+        double y = packet.getY(0);
+        double z = packet.getZ(0);
+        
+        // Vanilla disconnects clients sending these, leave them to it
+        if (hasPosition && !(Double.isFinite(x) && Double.isFinite(y) && Double.isFinite(z))) {
+            return;
+        }
+        
+        long time = CheatDetector.getInstance().getClock().currentMillis();
+        cheatdetector$movementQueue.offer(time, hasPosition, x, y, z, packet.isOnGround());
+    }
+}
@@ -0,0 +1,22 @@
+package com.minecraft.cheatdetector.mixin;
+
+import com.minecraft.cheatdetector.CheatDetector;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Keeps the ore exposure cache in step with block changes.
+ */
+@Mixin(ServerWorld.class)
+public abstract class ServerWorldMixin {
+    
+    @Inject(method = "onBlockChanged", at = @At("HEAD"))
+    private void cheatdetector$updateExposure(BlockPos pos, BlockState oldBlock, BlockState newBlock, CallbackInfo ci) {
+        CheatDetector.getInstance().getOreExposureCache().onBlockChanged((ServerWorld) (Object) this, pos, newBlock);
+    }
+}
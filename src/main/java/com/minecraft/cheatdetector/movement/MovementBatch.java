@@ -0,0 +1,99 @@
+package com.minecraft.cheatdetector.movement;
+
+/**
+ * The movement packets a player sent since the previous drain, reduced to what
+ * the detectors need: the latest reported state and the number of client ticks
+ * the player moved. Reused for every drain, so it is only valid until the next one.
+ */
+public class MovementBatch {
+    private int packets;
+    private int moveTicks;
+    private long lost;
+    
+    // Latest reported state
+    private boolean hasPosition;
+    private long time;
+    private double x;
+    private double y;
+    private double z;
+    private boolean onGround;
+    
+    void reset() {
+        packets = 0;
+        moveTicks = 0;
+        lost = 0;
+        hasPosition = false;
+    }
+    
+    void add(long time, boolean hasPosition, double x, double y, double z, boolean onGround) {
+        packets++;
+        this.time = time;
+        this.onGround = onGround;
+        
+        // Clients send their position on every tick they moved, so each one is a tick of movement
+        if (hasPosition) {
+            moveTicks++;
+            this.hasPosition = true;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+    
+    void setLost(long lost) {
+        this.lost = lost;
+    }
+    
+    /**
+     * Get the number of packets in the batch.
+     * @return The packet count
+     */
+    public int getPackets() {
+        return packets;
+    }
+    
+    /**
+     * Get the number of client ticks covered by the movement in the batch.
+     * @return The number of packets carrying a position, or 0 if packets were lost
+     *         and the count cannot be trusted
+     */
+    public int getMoveTicks() {
+        return lost > 0 ? 0 : moveTicks;
+    }
+    
+    /**
+     * Check if any packet in the batch carried a position.
+     * @return true if the batch has a position
+     */
+    public boolean hasPosition() {
+        return hasPosition;
+    }
+    
+    /**
+     * Get the arrival time of the latest packet.
+     * @return The time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    public double getX() {
+        return x;
+    }
+    
+    public double getY() {
+        return y;
+    }
+    
+    public double getZ() {
+        return z;
+    }
+    
+    /**
+     * Get the ground state reported by the latest packet.
+     * @return true if the client reported being on the ground
+     */
+    public boolean isOnGround() {
+        return onGround;
+    }
+}
@@ -0,0 +1,86 @@
+package com.minecraft.cheatdetector.movement;
+
+import com.minecraft.cheatdetector.analysis.PlayerSample;
+import com.minecraft.cheatdetector.cheat.Detector;
+import com.minecraft.cheatdetector.cheat.DetectorInput;
+import com.minecraft.cheatdetector.cheat.FlightDetector;
+import com.minecraft.cheatdetector.cheat.PlayerContext;
+import com.minecraft.cheatdetector.cheat.SpeedHackDetector;
+import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.trace.TraceRecorder;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Runs the movement detectors on the packets each player sent since the last tick.
+ * The whole queue is drained at once and the detectors see one sample per tick,
+ * built from the latest reported position and the number of client ticks moved.
+ * Only used on the server thread.
+ */
+public class MovementCheck implements Detector {
+    private static final Set<DetectorInput> INPUTS = EnumSet.of(DetectorInput.MOVEMENT);
+    
+    private final SpeedHackDetector speedHackDetector;
+    private final FlightDetector flightDetector;
+    private final TraceRecorder traceRecorder;
+    private final MovementBatch batch = new MovementBatch();
+    
+    /**
+     * Create a new movement check.
+     * @param speedHackDetector The speed hack detector
+     * @param flightDetector The flight detector
+     * @param traceRecorder The recorder the samples are traced to
+     */
+    public MovementCheck(SpeedHackDetector speedHackDetector, FlightDetector flightDetector, TraceRecorder traceRecorder) {
+        this.speedHackDetector = speedHackDetector;
+        this.flightDetector = flightDetector;
+        this.traceRecorder = traceRecorder;
+    }
+    
+    @Override
+    public String getName() {
+        return "Movement";
+    }
+    
+    @Override
+    public Set<DetectorInput> getInputs() {
+        return INPUTS;
+    }
+    
+    @Override
+    public int getIntervalTicks() {
+        // Speed and flight run every tick on the movement packets received since the last one
+        return 1;
+    }
+    
+    @Override
+    public int getSkippedStates() {
+        // The detectors judge the game mode from the sample, so replays see it too
+        return 0;
+    }
+    
+    /**
+     * Drain a player's movement queue and run the movement detectors on it.
+     * @param context The player to check
+     */
+    @Override
+    public void check(PlayerContext context) {
+        ServerPlayerEntity player = context.getPlayer();
+        MovementQueue queue = MovementQueue.of(player);
+        if (queue == null || queue.drainTo(batch) == 0 || !batch.hasPosition()) {
+            return;
+        }
+        
+        PlayerDataManager.PlayerData data = context.getData();
+        PlayerSample sample = PlayerSample.capture(context.getSnapshot(), batch);
+        traceRecorder.recordSample(sample, player.getName().getString());
+        
+        // Both detectors measure from the same previous position
+        speedHackDetector.evaluate(data, sample);
+        flightDetector.evaluate(data, sample);
+        data.setClientAheadMillis(sample.clientAheadMillis(data.getLastPositionTime(), data.getClientAheadMillis()));
+        data.setLastPosition(sample.x(), sample.y(), sample.z(), sample.time());
+    }
+}
@@ -0,0 +1,116 @@
+package com.minecraft.cheatdetector.movement;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer single-consumer queue of client movement packets.
+ * The producer is the network thread of the player's connection, which offers
+ * each packet as it arrives; the consumer is the server thread, which drains
+ * everything queued once per tick. Samples are stored in primitive arrays, so
+ * neither side allocates.
+ */
+public class MovementQueue {
+    static final int CAPACITY = 128;
+    private static final int MASK = CAPACITY - 1;
+    
+    private static final byte FLAG_POSITION = 1;
+    private static final byte FLAG_ON_GROUND = 1 << 1;
+    
+    private final long[] times = new long[CAPACITY];
+    private final double[] xs = new double[CAPACITY];
+    private final double[] ys = new double[CAPACITY];
+    private final double[] zs = new double[CAPACITY];
+    private final byte[] flags = new byte[CAPACITY];
+    
+    // Next slot to write, only advanced by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // Next slot to read, only advanced by the consumer
+    private final AtomicLong head = new AtomicLong();
+    
+    // Packets dropped because the queue was full, only written by the producer
+    private volatile long dropped;
+    // Dropped count already reported to the consumer, only used by the consumer
+    private long reportedDropped;
+    
+    /**
+     * Get the movement queue of a player's connection.
+     * @param player The player
+     * @return The queue, or null if the player has no connection
+     */
+    public static MovementQueue of(ServerPlayerEntity player) {
+        return player.networkHandler instanceof MovementSource source ? source.cheatdetector$getMovementQueue() : null;
+    }
+    
+    /**
+     * Queue a movement packet. Only called by the producer thread.
+     * @param time The arrival time of the packet in milliseconds
+     * @param hasPosition Whether the packet carries a position
+     * @param x The reported x coordinate
+     * @param y The reported y coordinate
+     * @param z The reported z coordinate
+     * @param onGround The reported ground state
+     * @return false if the queue was full and the packet was dropped
+     */
+    public boolean offer(long time, boolean hasPosition, double x, double y, double z, boolean onGround) {
+        long currentTail = tail.get();
+        if (currentTail - head.get() >= CAPACITY) {
+            dropped++;
+            return false;
+        }
+        
+        int slot = (int) (currentTail & MASK);
+        times[slot] = time;
+        xs[slot] = x;
+        ys[slot] = y;
+        zs[slot] = z;
+        flags[slot] = (byte) ((hasPosition ? FLAG_POSITION : 0) | (onGround ? FLAG_ON_GROUND : 0));
+        
+        // Publish the slot only after it is fully written
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+    
+    /**
+     * Move every queued packet into a batch. Only called by the consumer thread.
+     * @param batch The batch to fill, reset first
+     * @return The number of packets drained
+     */
+    public int drainTo(MovementBatch batch) {
+        batch.reset();
+        
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        long droppedSoFar = dropped;
+        
+        for (long i = currentHead; i < currentTail; i++) {
+            int slot = (int) (i & MASK);
+            byte slotFlags = flags[slot];
+            batch.add(times[slot], (slotFlags & FLAG_POSITION) != 0, xs[slot], ys[slot], zs[slot],
+                    (slotFlags & FLAG_ON_GROUND) != 0);
+        }
+        batch.setLost(droppedSoFar - reportedDropped);
+        reportedDropped = droppedSoFar;
+        
+        // Hand the slots back to the producer
+        head.lazySet(currentTail);
+        return (int) (currentTail - currentHead);
+    }
+    
+    /**
+     * Check whether no packet is waiting. Only called by the consumer thread.
+     * @return true if nothing was queued since the last drain
+     */
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+    
+    /**
+     * Get the number of packets dropped because the queue was full.
+     * @return The dropped packet count since the connection opened
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
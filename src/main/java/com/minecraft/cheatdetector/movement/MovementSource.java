@@ -0,0 +1,14 @@
+package com.minecraft.cheatdetector.movement;
+
+/**
+ * Implemented by the server network handler through a mixin, giving every
+ * player connection its own movement queue.
+ */
+public interface MovementSource {
+    
+    /**
+     * Get the queue the connection's movement packets are captured into.
+     * @return The movement queue
+     */
+    MovementQueue cheatdetector$getMovementQueue();
+}
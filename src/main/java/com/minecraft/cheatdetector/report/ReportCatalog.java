@@ -0,0 +1,310 @@
+package com.minecraft.cheatdetector.report;
+
+import com.minecraft.cheatdetector.CheatDetector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * In-memory catalog of every player with a report file: their name, number of
+ * violations and the time of the last one. Kept up to date as violations are
+ * logged, so listing reports never touches the disk.
+ * <p>
+ * The catalog is saved as a small binary index next to the report files, written
+ * to a temporary file and moved into place on a background thread. If the index
+ * is missing, as on the first start after an upgrade, it is rebuilt in the
+ * background from the headers of the existing report files.
+ */
+public class ReportCatalog {
+    private static final int FORMAT_VERSION = 1;
+    private static final String INDEX_FILE = "catalog.bin";
+    
+    private final Path reportsDirectory;
+    private final Path indexFile;
+    
+    // Entries are immutable and replaced whole, so readers never see a partial update
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CheatDetector-Catalog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Open the catalog of a reports directory, loading its index or scheduling a rebuild.
+     * @param reportsDirectory The directory holding the report files
+     */
+    public ReportCatalog(Path reportsDirectory) {
+        this.reportsDirectory = reportsDirectory;
+        this.indexFile = reportsDirectory.resolve(INDEX_FILE);
+        
+        if (Files.exists(indexFile)) {
+            load();
+        } else {
+            writer.execute(this::rebuild);
+        }
+    }
+    
+    /**
+     * Count a violation in its player's entry.
+     * @param playerUuid The UUID of the player who violated
+     * @param playerName The name of the player who violated
+     * @param timeMillis The time of the violation as epoch millis
+     */
+    public void record(UUID playerUuid, String playerName, long timeMillis) {
+        entries.compute(playerUuid, (uuid, previous) -> previous == null
+                ? new Entry(uuid, playerName, 1, timeMillis)
+                : new Entry(uuid, playerName, previous.violations() + 1, Math.max(previous.lastViolationMillis(), timeMillis)));
+        dirty = true;
+    }
+    
+    /**
+     * Get the catalog entry of a player.
+     * @param playerUuid The player's UUID
+     * @return The entry, or null if the player has no report
+     */
+    public Entry get(UUID playerUuid) {
+        return entries.get(playerUuid);
+    }
+    
+    /**
+     * Find the entry of a player by name. If several players used the name,
+     * the one who violated most recently is returned.
+     * @param playerName The player's name, compared case-insensitively
+     * @return The entry, or null if no report has that name
+     */
+    public Entry findByName(String playerName) {
+        Entry found = null;
+        for (Entry entry : entries.values()) {
+            if (entry.playerName().equalsIgnoreCase(playerName)
+                    && (found == null || entry.lastViolationMillis() > found.lastViolationMillis())) {
+                found = entry;
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Get one page of the reports whose player name contains a filter, most recently violated first.
+     * @param nameFilter Case-insensitive part of the player name, or null for all reports
+     * @param page The page number, starting at 1; clamped to the pages available
+     * @param pageSize The number of reports per page
+     * @return The page
+     */
+    public Page list(String nameFilter, int page, int pageSize) {
+        String filter = nameFilter == null ? null : nameFilter.toLowerCase(Locale.ROOT);
+        
+        List<Entry> matching = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (filter == null || entry.playerName().toLowerCase(Locale.ROOT).contains(filter)) {
+                matching.add(entry);
+            }
+        }
+        matching.sort(Comparator.comparingLong(Entry::lastViolationMillis).reversed());
+        
+        int size = Math.max(1, pageSize);
+        int pages = Math.max(1, (matching.size() + size - 1) / size);
+        int number = Math.min(Math.max(1, page), pages);
+        int from = (number - 1) * size;
+        int to = Math.min(from + size, matching.size());
+        
+        return new Page(List.copyOf(matching.subList(from, to)), number, pages, matching.size());
+    }
+    
+    /**
+     * Get the number of players with a report.
+     * @return The number of reports
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Queue a save of the index if anything changed since the last one. Returns immediately.
+     */
+    public void save() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        writer.execute(this::write);
+    }
+    
+    /**
+     * Save the index and stop the background writer.
+     */
+    public void close() {
+        save();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                CheatDetector.LOGGER.warn("Timed out saving the report catalog");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Read the index file.
+     */
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                CheatDetector.LOGGER.warn("Unknown report catalog version {}, rebuilding it", version);
+                writer.execute(this::rebuild);
+                return;
+            }
+            
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                entries.put(uuid, new Entry(uuid, in.readUTF(), in.readInt(), in.readLong()));
+            }
+        } catch (EOFException e) {
+            CheatDetector.LOGGER.warn("Report catalog is truncated, rebuilding it");
+            entries.clear();
+            writer.execute(this::rebuild);
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to load report catalog: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Write the index on the writer thread, replacing the old one atomically.
+     */
+    private void write() {
+        Path temporary = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+        List<Entry> snapshot = new ArrayList<>(entries.values());
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(snapshot.size());
+            for (Entry entry : snapshot) {
+                out.writeLong(entry.playerUuid().getMostSignificantBits());
+                out.writeLong(entry.playerUuid().getLeastSignificantBits());
+                out.writeUTF(entry.playerName());
+                out.writeInt(entry.violations());
+                out.writeLong(entry.lastViolationMillis());
+            }
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to save report catalog: " + e.getMessage());
+            dirty = true;
+            return;
+        }
+        
+        try {
+            Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to replace report catalog: " + e.getMessage());
+            dirty = true;
+        }
+    }
+    
+    /**
+     * Rebuild the catalog from the existing report files on the writer thread.
+     * Violations recorded meanwhile may already be in the report files, so the larger count wins.
+     */
+    private void rebuild() {
+        long start = System.nanoTime();
+        int rebuilt = 0;
+        
+        try (Stream<Path> files = Files.list(reportsDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(".txt")) {
+                    continue;
+                }
+                
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(name.substring(0, name.length() - ".txt".length()));
+                } catch (IllegalArgumentException e) {
+                    // Not a report file
+                    continue;
+                }
+                
+                Entry entry = readReportFile(uuid, file);
+                if (entry != null) {
+                    entries.merge(uuid, entry, (live, read) -> new Entry(uuid, live.playerName(),
+                            Math.max(live.violations(), read.violations()), live.lastViolationMillis()));
+                    rebuilt++;
+                }
+            }
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to rebuild report catalog: " + e.getMessage());
+            return;
+        }
+        
+        CheatDetector.LOGGER.info("Rebuilt report catalog from {} report files in {}ms",
+                rebuilt, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        write();
+    }
+    
+    /**
+     * Read the player name and violation count of an existing report file.
+     * @return The entry, or null if the file cannot be read
+     */
+    private static Entry readReportFile(UUID uuid, Path file) {
+        String playerName = "Unknown";
+        int violations = 0;
+        
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("[")) {
+                    violations++;
+                } else if (line.startsWith("Player:")) {
+                    playerName = line.substring("Player:".length()).trim();
+                }
+            }
+            return new Entry(uuid, playerName, violations, Files.getLastModifiedTime(file).toMillis());
+        } catch (IOException e) {
+            CheatDetector.LOGGER.warn("Failed to read report file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Catalog entry of one player.
+     * @param playerUuid The player's UUID
+     * @param playerName The player's name at their last violation
+     * @param violations The number of violations in the player's report
+     * @param lastViolationMillis The time of the last violation as epoch millis
+     */
+    public record Entry(UUID playerUuid, String playerName, int violations, long lastViolationMillis) {
+    }
+    
+    /**
+     * One page of a report listing.
+     * @param entries The reports on this page
+     * @param page The page number, starting at 1
+     * @param pages The total number of pages
+     * @param matching The total number of reports matching the filter
+     */
+    public record Page(List<Entry> entries, int page, int pages, int matching) {
+    }
+}
@@ -0,0 +1,521 @@
+package com.minecraft.cheatdetector.report;
+
+import com.minecraft.cheatdetector.CheatDetector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Append-only binary archive of every violation ever logged, with an in-memory
+ * per-player index answering lifetime queries without touching the disk.
+ * <p>
+ * Violations are written in blocks of columns - times as epoch millis, player
+ * ids, type ids and measurements - to numbered segment files that roll over at
+ * a fixed size. Player UUIDs and violation types are interned into small
+ * append-only dictionaries, so a violation takes 24 bytes. On startup the index
+ * is rebuilt from the time, player and type columns only; a block cut short by a
+ * crash is truncated away. All file access happens on a background thread.
+ */
+public class ViolationArchive {
+    private static final int BLOCK_MAGIC = 0x56494F4C;
+    private static final int BLOCK_HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 8 + 4 + 4 + 8;
+    private static final int MAX_BLOCK_RECORDS = 4096;
+    private static final long SEGMENT_MAX_BYTES = 8L << 20;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    
+    private final Path directory;
+    private final int queueCapacity;
+    private final long flushIntervalNanos;
+    
+    // Pending violations, bounded by queueCapacity through the queued counter
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    // Dictionaries, only written by the writer thread; type names are also read by queries
+    private final Map<UUID, Integer> playerIds = new HashMap<>();
+    private final List<UUID> playerUuids = new ArrayList<>();
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private final List<String> typeNames = new CopyOnWriteArrayList<>();
+    
+    // Lifetime summary of every player, replaced whole on each update
+    private final Map<UUID, PlayerIndex> index = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    
+    // Columns of the block being collected
+    private final long[] times = new long[MAX_BLOCK_RECORDS];
+    private final int[] players = new int[MAX_BLOCK_RECORDS];
+    private final int[] types = new int[MAX_BLOCK_RECORDS];
+    private final double[] measurements = new double[MAX_BLOCK_RECORDS];
+    private int blockSize;
+    
+    private FileChannel playerDictionary;
+    private FileChannel typeDictionary;
+    private FileChannel segment;
+    private int segmentNumber;
+    
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    
+    /**
+     * Create and start a new violation archive.
+     * @param directory The directory holding the archive files
+     * @param queueCapacity The maximum number of pending violations
+     * @param flushIntervalMillis The longest time a violation waits before being written
+     */
+    public ViolationArchive(Path directory, int queueCapacity, long flushIntervalMillis) {
+        this.directory = directory;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        
+        this.writerThread = new Thread(this::run, "CheatDetector-Archive");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+    
+    /**
+     * Queue a violation for the archive. Never blocks; the violation is dropped if the queue is full.
+     * @param playerUuid The UUID of the player who violated
+     * @param type The type of violation
+     * @param timeMillis The time of the violation as epoch millis
+     * @param measurement The value that triggered the violation, or NaN if there is none
+     * @return true if the violation was queued, false if it was dropped
+     */
+    public boolean append(UUID playerUuid, String type, long timeMillis, double measurement) {
+        if (!running) {
+            return false;
+        }
+        
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            long total = dropped.incrementAndGet();
+            if (total == 1 || total % 1000 == 0) {
+                CheatDetector.LOGGER.warn("Violation archive is full, {} violations dropped so far", total);
+            }
+            return false;
+        }
+        
+        queue.offer(new Entry(playerUuid, type, timeMillis, measurement));
+        return true;
+    }
+    
+    /**
+     * Get the lifetime violation history of a player.
+     * @param playerUuid The player's UUID
+     * @return The history, or null if the archive holds nothing for the player or is still loading
+     */
+    public History getHistory(UUID playerUuid) {
+        PlayerIndex entry = index.get(playerUuid);
+        if (entry == null) {
+            return null;
+        }
+        
+        List<TypeCount> typeCounts = new ArrayList<>();
+        for (int typeId = 0; typeId < entry.countsByType().length; typeId++) {
+            long count = entry.countsByType()[typeId];
+            if (count > 0 && typeId < typeNames.size()) {
+                typeCounts.add(new TypeCount(typeNames.get(typeId), count));
+            }
+        }
+        typeCounts.sort((a, b) -> Long.compare(b.count(), a.count()));
+        
+        return new History(entry.count(), entry.firstMillis(), entry.lastMillis(), typeCounts);
+    }
+    
+    /**
+     * Check whether the archive has finished loading its index.
+     * @return Whether lifetime queries are complete
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Stop accepting new violations, write everything still queued and close the archive files.
+     * Waits up to the given time for the writer thread to finish.
+     * @param timeoutMillis The maximum time to wait
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        LockSupport.unpark(writerThread);
+        
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (writerThread.isAlive()) {
+            CheatDetector.LOGGER.warn("Violation archive did not finish within {}ms, {} violations pending", timeoutMillis, queued.get());
+        }
+    }
+    
+    /**
+     * Main loop of the writer thread.
+     */
+    private void run() {
+        try {
+            open();
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to open violation archive, violations will not be archived: " + e.getMessage());
+            running = false;
+            closeAll();
+            return;
+        }
+        ready = true;
+        
+        while (running || !queue.isEmpty()) {
+            if (running) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            
+            try {
+                Entry entry;
+                while ((entry = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    add(entry);
+                    if (blockSize == MAX_BLOCK_RECORDS) {
+                        writeBlock();
+                    }
+                }
+                writeBlock();
+            } catch (IOException e) {
+                CheatDetector.LOGGER.error("Failed to write violation archive: " + e.getMessage());
+                blockSize = 0;
+            }
+        }
+        
+        closeAll();
+    }
+    
+    /**
+     * Add a violation to the current block and the index.
+     * @param entry The violation
+     * @throws IOException If a dictionary cannot be written
+     */
+    private void add(Entry entry) throws IOException {
+        int playerId = internPlayer(entry.playerUuid());
+        int typeId = internType(entry.type());
+        
+        times[blockSize] = entry.timeMillis();
+        players[blockSize] = playerId;
+        types[blockSize] = typeId;
+        measurements[blockSize] = entry.measurement();
+        blockSize++;
+        
+        index(entry.playerUuid(), typeId, entry.timeMillis());
+    }
+    
+    /**
+     * Write the current block to the current segment, rolling over to a new segment when it is full.
+     * @throws IOException If writing fails
+     */
+    private void writeBlock() throws IOException {
+        if (blockSize == 0) {
+            return;
+        }
+        
+        ByteBuffer bytes = ByteBuffer.allocate(BLOCK_HEADER_BYTES + blockSize * RECORD_BYTES);
+        bytes.putInt(BLOCK_MAGIC).putInt(blockSize);
+        for (int i = 0; i < blockSize; i++) {
+            bytes.putLong(times[i]);
+        }
+        for (int i = 0; i < blockSize; i++) {
+            bytes.putInt(players[i]);
+        }
+        for (int i = 0; i < blockSize; i++) {
+            bytes.putInt(types[i]);
+        }
+        for (int i = 0; i < blockSize; i++) {
+            bytes.putDouble(measurements[i]);
+        }
+        bytes.flip();
+        blockSize = 0;
+        
+        writeFully(segment, bytes);
+        if (segment.size() >= SEGMENT_MAX_BYTES) {
+            segment.close();
+            segment = openSegment(++segmentNumber);
+        }
+    }
+    
+    /**
+     * Load the dictionaries, rebuild the index from the segments and open the last segment for appending.
+     * @throws IOException If the archive cannot be read or opened
+     */
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        
+        playerDictionary = openAppend(directory.resolve("players.dict"));
+        loadDictionary(playerDictionary, in -> {
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            playerIds.put(uuid, playerUuids.size());
+            playerUuids.add(uuid);
+        });
+        
+        typeDictionary = openAppend(directory.resolve("types.dict"));
+        loadDictionary(typeDictionary, in -> {
+            String type = in.readUTF();
+            typeIds.put(type, typeNames.size());
+            typeNames.add(type);
+        });
+        
+        List<Integer> segmentNumbers = listSegments();
+        long violations = 0;
+        for (int i = 0; i < segmentNumbers.size(); i++) {
+            violations += loadSegment(segmentNumbers.get(i), i == segmentNumbers.size() - 1);
+        }
+        
+        segmentNumber = segmentNumbers.isEmpty() ? 1 : segmentNumbers.get(segmentNumbers.size() - 1);
+        segment = openSegment(segmentNumber);
+        
+        CheatDetector.LOGGER.info("Loaded violation archive: {} violations of {} players in {}ms",
+                violations, index.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    /**
+     * Read the index columns of every complete block of a segment.
+     * @param number The segment number
+     * @param last Whether this is the segment new blocks are appended to
+     * @return The number of violations read
+     * @throws IOException If reading fails
+     */
+    private long loadSegment(int number, boolean last) throws IOException {
+        Path file = segmentPath(number);
+        long violations = 0;
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate((int) channel.size());
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // Keep reading until the buffer is full
+            }
+            bytes.flip();
+            
+            while (bytes.remaining() >= BLOCK_HEADER_BYTES) {
+                int blockStart = bytes.position();
+                int magic = bytes.getInt();
+                int count = bytes.getInt();
+                if (magic != BLOCK_MAGIC || count <= 0 || count > MAX_BLOCK_RECORDS
+                        || bytes.remaining() < count * RECORD_BYTES) {
+                    bytes.position(blockStart);
+                    break;
+                }
+                
+                // Only the time, player and type columns are needed for the index
+                int timeColumn = bytes.position();
+                int playerColumn = timeColumn + count * 8;
+                int typeColumn = playerColumn + count * 4;
+                for (int i = 0; i < count; i++) {
+                    int playerId = bytes.getInt(playerColumn + i * 4);
+                    if (playerId >= 0 && playerId < playerUuids.size()) {
+                        index(playerUuids.get(playerId), bytes.getInt(typeColumn + i * 4), bytes.getLong(timeColumn + i * 8));
+                    }
+                }
+                bytes.position(blockStart + BLOCK_HEADER_BYTES + count * RECORD_BYTES);
+                violations += count;
+            }
+            
+            if (bytes.hasRemaining()) {
+                CheatDetector.LOGGER.warn("Violation archive segment {} has {} unreadable bytes at the end", file, bytes.remaining());
+                if (last) {
+                    channel.truncate(bytes.position());
+                }
+            }
+        }
+        return violations;
+    }
+    
+    /**
+     * Read every complete entry of a dictionary, truncating a partial entry left by a crash.
+     * @param channel The dictionary file
+     * @param reader Reads one entry
+     * @throws IOException If reading fails
+     */
+    private static void loadDictionary(FileChannel channel, DictionaryReader reader) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) channel.size());
+        channel.position(0);
+        while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+            // Keep reading until the buffer is full
+        }
+        
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.array()));
+        long valid = 0;
+        try {
+            while (in.available() > 0) {
+                reader.read(in);
+                valid = bytes.capacity() - in.available();
+            }
+        } catch (EOFException e) {
+            CheatDetector.LOGGER.warn("Violation archive dictionary ends in a partial entry, dropping it");
+            channel.truncate(valid);
+        }
+        channel.position(channel.size());
+    }
+    
+    private int internPlayer(UUID playerUuid) throws IOException {
+        Integer id = playerIds.get(playerUuid);
+        if (id != null) {
+            return id;
+        }
+        
+        ByteBuffer bytes = ByteBuffer.allocate(16);
+        bytes.putLong(playerUuid.getMostSignificantBits()).putLong(playerUuid.getLeastSignificantBits()).flip();
+        writeFully(playerDictionary, bytes);
+        
+        id = playerUuids.size();
+        playerIds.put(playerUuid, id);
+        playerUuids.add(playerUuid);
+        return id;
+    }
+    
+    private int internType(String type) throws IOException {
+        Integer id = typeIds.get(type);
+        if (id != null) {
+            return id;
+        }
+        
+        ByteArrayOutputStream name = new ByteArrayOutputStream();
+        new DataOutputStream(name).writeUTF(type);
+        writeFully(typeDictionary, ByteBuffer.wrap(name.toByteArray()));
+        
+        id = typeNames.size();
+        typeIds.put(type, id);
+        typeNames.add(type);
+        return id;
+    }
+    
+    /**
+     * Count a violation in its player's lifetime summary.
+     */
+    private void index(UUID playerUuid, int typeId, long timeMillis) {
+        if (typeId < 0) {
+            return;
+        }
+        index.compute(playerUuid, (uuid, previous) -> previous == null
+                ? PlayerIndex.first(typeId, timeMillis)
+                : previous.plus(typeId, timeMillis));
+    }
+    
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            numbers.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+    
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+    
+    private FileChannel openSegment(int number) throws IOException {
+        return openAppend(segmentPath(number));
+    }
+    
+    private static FileChannel openAppend(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+    
+    private void closeAll() {
+        for (FileChannel channel : new FileChannel[] {segment, playerDictionary, typeDictionary}) {
+            if (channel == null) {
+                continue;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                CheatDetector.LOGGER.error("Failed to close violation archive file: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Lifetime violation history of one player.
+     * @param count The number of violations
+     * @param firstMillis The time of the first violation as epoch millis
+     * @param lastMillis The time of the last violation as epoch millis
+     * @param types The number of violations of each type, most frequent first
+     */
+    public record History(long count, long firstMillis, long lastMillis, List<TypeCount> types) {
+    }
+    
+    /**
+     * Number of violations of one type.
+     */
+    public record TypeCount(String type, long count) {
+    }
+    
+    /**
+     * A single queued violation.
+     */
+    private record Entry(UUID playerUuid, String type, long timeMillis, double measurement) {
+    }
+    
+    /**
+     * Immutable lifetime summary of one player, indexed by type id.
+     */
+    private record PlayerIndex(long count, long firstMillis, long lastMillis, long[] countsByType) {
+        static PlayerIndex first(int typeId, long timeMillis) {
+            long[] counts = new long[typeId + 1];
+            counts[typeId] = 1;
+            return new PlayerIndex(1, timeMillis, timeMillis, counts);
+        }
+        
+        PlayerIndex plus(int typeId, long timeMillis) {
+            long[] counts = Arrays.copyOf(countsByType, Math.max(countsByType.length, typeId + 1));
+            counts[typeId]++;
+            return new PlayerIndex(count + 1, Math.min(firstMillis, timeMillis), Math.max(lastMillis, timeMillis), counts);
+        }
+    }
+    
+    /**
+     * Reads one dictionary entry.
+     */
+    @FunctionalInterface
+    private interface DictionaryReader {
+        void read(DataInputStream in) throws IOException;
+    }
+}
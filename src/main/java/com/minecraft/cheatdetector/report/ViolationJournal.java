@@ -0,0 +1,269 @@
+package com.minecraft.cheatdetector.report;
+
+import com.minecraft.cheatdetector.CheatDetector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends violations to the per-player report files from a background thread.
+ * The server thread only enqueues entries; the writer drains them in batches,
+ * logs each to the console and keeps a small LRU set of report files open between batches.
+ */
+public class ViolationJournal {
+    private static final DateTimeFormatter HEADER_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private final Path reportsDirectory;
+    private final int queueCapacity;
+    private final int flushBatchSize;
+    private final long flushIntervalNanos;
+    
+    // Pending entries, bounded by queueCapacity through the queued counter
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    // Open report files in access order, only touched by the writer thread
+    private final Map<UUID, FileChannel> openChannels;
+    
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    
+    /**
+     * Create and start a new violation journal.
+     * @param reportsDirectory The directory holding the report files
+     * @param queueCapacity The maximum number of pending entries
+     * @param maxOpenFiles The maximum number of report files kept open
+     * @param flushIntervalMillis The longest time an entry waits before being written
+     * @param flushBatchSize The number of pending entries that triggers an early write
+     */
+    public ViolationJournal(Path reportsDirectory, int queueCapacity, int maxOpenFiles,
+                            long flushIntervalMillis, int flushBatchSize) {
+        this.reportsDirectory = reportsDirectory;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.flushBatchSize = Math.max(1, flushBatchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        
+        int openFileLimit = Math.max(1, maxOpenFiles);
+        this.openChannels = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, FileChannel> eldest) {
+                if (size() > openFileLimit) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        
+        this.writerThread = new Thread(this::run, "CheatDetector-Journal");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+    
+    /**
+     * Queue a violation for a player's report file. Never blocks; the violation is dropped if the queue is full.
+     * Its report and console lines are rendered on the writer thread.
+     * @param playerUuid The player's UUID
+     * @param playerName The player's name, written into the header of a new report file
+     * @param violation The violation to append
+     * @return true if the violation was queued, false if it was dropped
+     */
+    public boolean append(UUID playerUuid, String playerName, ViolationManager.Violation violation) {
+        if (!running) {
+            return false;
+        }
+        
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            long total = dropped.incrementAndGet();
+            if (total == 1 || total % 1000 == 0) {
+                CheatDetector.LOGGER.warn("Violation journal is full, {} report lines dropped so far", total);
+            }
+            return false;
+        }
+        
+        queue.offer(new Entry(playerUuid, playerName, violation));
+        
+        // Wake the writer early once a full batch is waiting
+        if (queued.get() >= flushBatchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+    
+    /**
+     * Get the number of report lines dropped because the queue was full.
+     * @return The number of dropped lines
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    /**
+     * Stop accepting new lines, write everything still queued and close all report files.
+     * Waits up to the given time for the writer thread to finish.
+     * @param timeoutMillis The maximum time to wait
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        LockSupport.unpark(writerThread);
+        
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (writerThread.isAlive()) {
+            CheatDetector.LOGGER.warn("Violation journal did not finish within {}ms, {} lines pending", timeoutMillis, queued.get());
+        }
+    }
+    
+    /**
+     * Main loop of the writer thread.
+     */
+    private void run() {
+        Map<UUID, PendingFile> batch = new LinkedHashMap<>();
+        
+        while (running || !queue.isEmpty()) {
+            // Sleep until the flush interval passes or a producer signals a full batch
+            if (running && queued.get() < flushBatchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            
+            while (!queue.isEmpty()) {
+                drainBatch(batch);
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        
+        for (FileChannel channel : openChannels.values()) {
+            closeQuietly(channel);
+        }
+        openChannels.clear();
+    }
+    
+    /**
+     * Move up to one batch of queued entries into per-file buffers.
+     * @param batch The batch to fill
+     */
+    private void drainBatch(Map<UUID, PendingFile> batch) {
+        Entry entry;
+        int drained = 0;
+        
+        while (drained < flushBatchSize && (entry = queue.poll()) != null) {
+            queued.decrementAndGet();
+            drained++;
+            
+            PendingFile pending = batch.get(entry.playerUuid());
+            if (pending == null) {
+                pending = new PendingFile(entry.playerName());
+                batch.put(entry.playerUuid(), pending);
+            }
+            ViolationManager.Violation violation = entry.violation();
+            String details = violation.details();
+            pending.text.append('[').append(violation.timestamp()).append("] ")
+                    .append(violation.type().getId()).append(": ")
+                    .append(details).append('\n');
+            CheatDetector.LOGGER.info("{} violated {}: {}", entry.playerName(), violation.type().getId(), details);
+        }
+    }
+    
+    /**
+     * Write each file's buffered lines with a single append.
+     * @param batch The batch to write
+     */
+    private void writeBatch(Map<UUID, PendingFile> batch) {
+        for (Map.Entry<UUID, PendingFile> pending : batch.entrySet()) {
+            UUID playerUuid = pending.getKey();
+            
+            try {
+                FileChannel channel = channelFor(playerUuid, pending.getValue().playerName);
+                ByteBuffer bytes = ByteBuffer.wrap(pending.getValue().text.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException e) {
+                CheatDetector.LOGGER.error("Failed to save violation to file: " + e.getMessage());
+                closeQuietly(openChannels.remove(playerUuid));
+            }
+        }
+    }
+    
+    /**
+     * Get the open channel for a player's report file, opening it and writing the header if needed.
+     * @param playerUuid The player's UUID
+     * @param playerName The player's name
+     * @return The append channel for the report file
+     * @throws IOException If the file cannot be opened
+     */
+    private FileChannel channelFor(UUID playerUuid, String playerName) throws IOException {
+        FileChannel channel = openChannels.get(playerUuid);
+        if (channel != null) {
+            return channel;
+        }
+        
+        Path reportFile = reportsDirectory.resolve(playerUuid + ".txt");
+        channel = FileChannel.open(reportFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        
+        // Write player info at the top of a new file
+        if (channel.size() == 0) {
+            String header = "Player: " + playerName + "\n"
+                    + "UUID: " + playerUuid + "\n"
+                    + "Report created: " + HEADER_DATE_FORMAT.format(LocalDateTime.now()) + "\n"
+                    + "=========================================\n\n";
+            ByteBuffer bytes = ByteBuffer.wrap(header.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        
+        openChannels.put(playerUuid, channel);
+        return channel;
+    }
+    
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to close report file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * A single queued violation.
+     */
+    private record Entry(UUID playerUuid, String playerName, ViolationManager.Violation violation) {
+    }
+    
+    /**
+     * Lines collected for one report file during a batch.
+     */
+    private static final class PendingFile {
+        private final String playerName;
+        private final StringBuilder text = new StringBuilder();
+        
+        private PendingFile(String playerName) {
+            this.playerName = playerName;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.minecraft.cheatdetector.report;
+
+import java.util.UUID;
+
+/**
+ * Receives every violation logged by the violation manager.
+ */
+@FunctionalInterface
+public interface ViolationListener {
+    
+    /**
+     * Called after a violation was logged.
+     * @param playerUuid The UUID of the player who violated
+     * @param playerName The name of the player who violated
+     * @param violation The logged violation
+     */
+    void onViolation(UUID playerUuid, String playerName, ViolationManager.Violation violation);
+}
@@ -2,55 +2,120 @@ package com.minecraft.cheatdetector.report;
 
 import com.minecraft.cheatdetector.CheatDetector;
 import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.metrics.PerfMetric;
+import com.minecraft.cheatdetector.metrics.PerfMonitor;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.math.Vec3d;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages the recording and handling of cheat violations.
+ * Violations are keyed by player UUID and name rather than the player entity,
+ * so the detectors can also report them while replaying a trace headlessly.
  */
 public class ViolationManager {
     private final ModConfig config;
     private final Map<UUID, List<Violation>> violationMap = new HashMap<>();
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private final ViolationJournal journal;
+    private final ViolationArchive archive;
+    private final ReportCatalog reportCatalog;
+    private final List<ViolationListener> listeners = new CopyOnWriteArrayList<>();
+    
+    // Server used to reach online admins and players, or null when running headless
+    private volatile MinecraftServer server;
+    
+    // Times violation logging, or null when not monitored
+    private PerfMetric logMetric;
     
     /**
      * Create a new violation manager.
      * @param config The mod configuration
      */
     public ViolationManager(ModConfig config) {
+        this(config, Paths.get("reports"));
+    }
+    
+    /**
+     * Create a new violation manager writing its report files to the given directory.
+     * @param config The mod configuration
+     * @param reportsDirectory The directory holding the report files
+     */
+    public ViolationManager(ModConfig config, Path reportsDirectory) {
         this.config = config;
         
         // Create reports directory if it doesn't exist
         try {
-            Files.createDirectories(Paths.get("reports"));
+            Files.createDirectories(reportsDirectory);
         } catch (IOException e) {
             CheatDetector.LOGGER.error("Failed to create reports directory: " + e.getMessage());
         }
+        
+        // Report files are written off the server thread
+        this.journal = new ViolationJournal(reportsDirectory,
+                config.getJournalQueueCapacity(),
+                config.getJournalMaxOpenFiles(),
+                config.getJournalFlushIntervalMillis(),
+                config.getJournalFlushBatchSize());
+        
+        // Every violation is also archived for lifetime queries
+        this.archive = new ViolationArchive(reportsDirectory.resolve("archive"),
+                config.getJournalQueueCapacity(),
+                config.getJournalFlushIntervalMillis());
+        
+        // Who has a report, so listing them never reads the report files
+        this.reportCatalog = new ReportCatalog(reportsDirectory);
     }
     
     /**
      * Log a violation by a player.
+     * The details are only formatted when a report file, the console or a command needs them.
      * @param player The player who violated
      * @param type The type of violation
-     * @param details Details about the violation
+     * @param detailFormat Format string of the details, with a specifier for each value
+     * @param values The values describing the violation, the one that triggered it first
+     */
+    public void logViolation(ServerPlayerEntity player, ViolationType type, String detailFormat, double... values) {
+        logViolation(player.getUuid(), player.getName().getString(), type, detailFormat, values);
+    }
+    
+    /**
+     * Log a violation by a player who may not be online, as when replaying a trace.
+     * The details are only formatted when a report file, the console or a command needs them.
+     * @param playerUuid The UUID of the player who violated
+     * @param playerName The name of the player who violated
+     * @param type The type of violation
+     * @param detailFormat Format string of the details, with a specifier for each value
+     * @param values The values describing the violation, the one that triggered it first
      */
-    public void logViolation(ServerPlayerEntity player, String type, String details) {
-        UUID playerUuid = player.getUuid();
-        String playerName = player.getName().getString();
-        String timestamp = dateFormat.format(new Date());
+    public void logViolation(UUID playerUuid, String playerName, ViolationType type, String detailFormat, double... values) {
+        if (logMetric == null) {
+            recordViolation(playerUuid, playerName, type, detailFormat, values);
+            return;
+        }
         
+        logMetric.begin();
+        try {
+            recordViolation(playerUuid, playerName, type, detailFormat, values);
+        } finally {
+            logMetric.end();
+        }
+    }
+    
+    private void recordViolation(UUID playerUuid, String playerName, ViolationType type, String detailFormat, double[] values) {
         // Create a new violation
-        Violation violation = new Violation(type, details, timestamp);
+        Violation violation = new Violation(type, System.currentTimeMillis(), detailFormat, values);
         
         // Add to the violation map
         List<Violation> playerViolations = violationMap.computeIfAbsent(playerUuid, k -> new ArrayList<>());
@@ -61,126 +126,133 @@ public class ViolationManager {
             playerViolations.remove(0);
         }
         
-        // Log to console
-        CheatDetector.LOGGER.info("[{}] {} violated {}: {}", timestamp, playerName, type, details);
-        
-        // Log to player report file
-        saveViolationToFile(playerUuid, playerName, violation);
+        // Log to player report file and console, rendered on the writer thread; a dropped line is logged here
+        if (!journal.append(playerUuid, playerName, violation) && CheatDetector.LOGGER.isInfoEnabled()) {
+            CheatDetector.LOGGER.info("{} violated {}: {}", playerName, type.getId(), violation.details());
+        }
+        archive.append(playerUuid, type.getId(), violation.timeMillis(), violation.measurement());
+        reportCatalog.record(playerUuid, playerName, violation.timeMillis());
         
         // Notify admins if they're online
-        notifyAdmins(player, type, details);
+        notifyAdmins(playerName, violation);
+        
+        for (ViolationListener listener : listeners) {
+            listener.onViolation(playerUuid, playerName, violation);
+        }
     }
     
     /**
-     * Save a violation to the player's report file.
-     * @param playerUuid The player's UUID
-     * @param playerName The player's name
-     * @param violation The violation to save
+     * Register a listener called for every logged violation.
+     * @param listener The listener to add
      */
-    private void saveViolationToFile(UUID playerUuid, String playerName, Violation violation) {
-        File reportFile = new File("reports", playerUuid.toString() + ".txt");
-        boolean isNewFile = !reportFile.exists();
-        
-        try (FileWriter writer = new FileWriter(reportFile, true)) {
-            // Write player info at the top of a new file
-            if (isNewFile) {
-                writer.write("Player: " + playerName + "\n");
-                writer.write("UUID: " + playerUuid + "\n");
-                writer.write("Report created: " + dateFormat.format(new Date()) + "\n");
-                writer.write("=========================================\n\n");
-            }
-            
-            // Write the violation
-            writer.write("[" + violation.timestamp() + "] " + violation.type() + ": " + violation.details() + "\n");
-        } catch (IOException e) {
-            CheatDetector.LOGGER.error("Failed to save violation to file: " + e.getMessage());
-        }
+    public void addListener(ViolationListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Set the server whose online admins and players receive violation messages.
+     * @param server The running server, or null when there is none
+     */
+    public void setServer(MinecraftServer server) {
+        this.server = server;
+    }
+    
+    /**
+     * Time every logged violation with the given monitor.
+     * Violations must then only be logged on the server thread.
+     * @param perfMonitor The performance monitor
+     */
+    public void setPerfMonitor(PerfMonitor perfMonitor) {
+        this.logMetric = perfMonitor.metric("logViolation");
+    }
+    
+    /**
+     * Write all queued violations to disk and stop the report writer.
+     * Called when the server is shutting down.
+     */
+    public void close() {
+        journal.shutdown(5000);
+        archive.shutdown(5000);
+        reportCatalog.close();
     }
     
     /**
      * Notify all online admins about a violation.
-     * @param player The player who violated
-     * @param type The type of violation
-     * @param details Details about the violation
+     * The message is only rendered if an admin is online, and then once for all of them.
+     * @param playerName The name of the player who violated
+     * @param violation The violation
      */
-    private void notifyAdmins(ServerPlayerEntity player, String type, String details) {
-        String message = player.getName().getString() + " violated " + type + ": " + details;
+    private void notifyAdmins(String playerName, Violation violation) {
+        MinecraftServer server = this.server;
+        if (server == null) {
+            return;
+        }
         
         // Send message to all players with permission level 2 or higher (ops by default)
-        player.getServer().getPlayerManager().getPlayerList().forEach(admin -> {
-            if (admin.hasPermissionLevel(2)) {
-                admin.sendMessage(Text.literal("[CheatDetector] " + message).formatted(Formatting.RED), false);
+        Text message = null;
+        for (ServerPlayerEntity admin : server.getPlayerManager().getPlayerList()) {
+            if (!admin.hasPermissionLevel(2)) {
+                continue;
             }
-        });
+            if (message == null) {
+                message = Text.literal("[CheatDetector] " + playerName + " violated " + violation.type().getId() + ": " + violation.details())
+                        .formatted(Formatting.RED);
+            }
+            admin.sendMessage(message, false);
+        }
     }
     
     /**
      * Handle a speed hack violation.
-     * @param player The player who violated
+     * @param playerUuid The UUID of the player who violated
      * @param speed The detected speed
      */
-    public void handleSpeedViolation(ServerPlayerEntity player, double speed) {
+    public void handleSpeedViolation(UUID playerUuid, double speed) {
         // For detection purposes, we don't take any action on the player
         // except logging the violation
         
         // If debug mode is enabled, notify the player
         if (config.isDebugMode()) {
-            player.sendMessage(Text.literal("[CheatDetector] Speed hack detected: " + speed + " blocks/sec").formatted(Formatting.RED), false);
+            sendDebugMessage(playerUuid, "[CheatDetector] Speed hack detected: " + speed + " blocks/sec");
         }
     }
     
     /**
      * Handle a flight hack violation.
-     * @param player The player who violated
-     */
-    public void handleFlyViolation(ServerPlayerEntity player) {
-        // For detection purposes, we don't take any action on the player
-        // except logging the violation
-        
-        // If debug mode is enabled, notify the player
-        if (config.isDebugMode()) {
-            player.sendMessage(Text.literal("[CheatDetector] Flight hack detected").formatted(Formatting.RED), false);
-        }
-    }
-    
-    /**
-     * Handle a speed hack violation.
-     * @param player The player who violated
-     * @param speed The detected speed
-     * @param lastValidPosition The last valid position
+     * @param playerUuid The UUID of the player who violated
      */
-    public void handleSpeedHackViolation(ServerPlayerEntity player, double speed, Vec3d lastValidPosition) {
+    public void handleFlyViolation(UUID playerUuid) {
         // For detection purposes, we don't take any action on the player
         // except logging the violation
         
         // If debug mode is enabled, notify the player
         if (config.isDebugMode()) {
-            player.sendMessage(Text.literal("[CheatDetector] Speed hack detected: " + speed + " blocks/sec").formatted(Formatting.RED), false);
+            sendDebugMessage(playerUuid, "[CheatDetector] Flight hack detected");
         }
     }
     
     /**
      * Handle a flight hack violation.
-     * @param player The player who violated
+     * @param playerUuid The UUID of the player who violated
      * @param verticalSpeed The detected vertical speed
      * @param lastValidPosition The last valid position
      */
-    public void handleFlyHackViolation(ServerPlayerEntity player, double verticalSpeed, Vec3d lastValidPosition) {
+    public void handleFlyHackViolation(UUID playerUuid, double verticalSpeed, Vec3d lastValidPosition) {
         // For detection purposes, we don't take any action on the player
         // except logging the violation
         
         // If debug mode is enabled, notify the player
         if (config.isDebugMode()) {
-            player.sendMessage(Text.literal("[CheatDetector] Flight hack detected: " + verticalSpeed + " blocks/sec vertical").formatted(Formatting.RED), false);
+            sendDebugMessage(playerUuid, "[CheatDetector] Flight hack detected: " + verticalSpeed + " blocks/sec vertical");
         }
     }
     
     /**
      * Handle an X-ray violation.
-     * @param player The player who violated
+     * @param playerUuid The UUID of the player who violated
      * @param ratio The suspicious diamond to stone ratio
      */
-    public void handleXrayViolation(ServerPlayerEntity player, double ratio) {
+    public void handleXrayViolation(UUID playerUuid, double ratio) {
         // For detection purposes, we don't take any action on the player
         // except logging the violation
         
@@ -189,16 +261,16 @@ public class ViolationManager {
             String message = ratio < 0 
                     ? "[CheatDetector] X-ray hack detected: Direct mining to hidden ores" 
                     : "[CheatDetector] X-ray hack detected: Diamond/Stone ratio " + ratio;
-            player.sendMessage(Text.literal(message).formatted(Formatting.RED), false);
+            sendDebugMessage(playerUuid, message);
         }
     }
     
     /**
      * Handle a kill aura violation.
-     * @param player The player who violated
+     * @param playerUuid The UUID of the player who violated
      * @param value The value related to the violation (attack count, etc.)
      */
-    public void handleKillAuraViolation(ServerPlayerEntity player, int value) {
+    public void handleKillAuraViolation(UUID playerUuid, int value) {
         // For detection purposes, we don't take any action on the player
         // except logging the violation
         
@@ -207,37 +279,35 @@ public class ViolationManager {
             String message = value < 0 
                     ? "[CheatDetector] KillAura hack detected: Suspicious attack patterns" 
                     : "[CheatDetector] KillAura hack detected: " + value + " attacks";
-            player.sendMessage(Text.literal(message).formatted(Formatting.RED), false);
+            sendDebugMessage(playerUuid, message);
         }
     }
     
     /**
      * Handle a reach hack violation.
-     * @param player The player who violated
+     * @param playerUuid The UUID of the player who violated
      * @param distance The attack distance
      */
-    public void handleReachHackViolation(ServerPlayerEntity player, double distance) {
+    public void handleReachHackViolation(UUID playerUuid, double distance) {
         // For detection purposes, we don't take any action on the player
         // except logging the violation
         
         // If debug mode is enabled, notify the player
         if (config.isDebugMode()) {
-            player.sendMessage(Text.literal("[CheatDetector] Reach hack detected: " + distance + " blocks").formatted(Formatting.RED), false);
+            sendDebugMessage(playerUuid, "[CheatDetector] Reach hack detected: " + distance + " blocks");
         }
     }
     
     /**
-     * Handle a NoFall violation.
-     * @param player The player who violated
-     * @param fallDistance The fall distance
+     * Send a debug message to the player who violated, if they are online.
+     * @param playerUuid The player's UUID
+     * @param message The message to send
      */
-    public void handleNoFallViolation(ServerPlayerEntity player, double fallDistance) {
-        // For detection purposes, we don't take any action on the player
-        // except logging the violation
-        
-        // If debug mode is enabled, notify the player
-        if (config.isDebugMode()) {
-            player.sendMessage(Text.literal("[CheatDetector] NoFall hack detected: " + fallDistance + " blocks").formatted(Formatting.RED), false);
+    private void sendDebugMessage(UUID playerUuid, String message) {
+        MinecraftServer server = this.server;
+        ServerPlayerEntity player = server != null ? server.getPlayerManager().getPlayer(playerUuid) : null;
+        if (player != null) {
+            player.sendMessage(Text.literal(message).formatted(Formatting.RED), false);
         }
     }
     
@@ -251,8 +321,120 @@ public class ViolationManager {
     }
     
     /**
-     * Record representing a single violation.
+     * Get the lifetime violation history of a player, across server restarts.
+     * @param playerUuid The player's UUID
+     * @return The history, or null if the player has no archived violations
+     */
+    public ViolationArchive.History getViolationHistory(UUID playerUuid) {
+        return archive.getHistory(playerUuid);
+    }
+    
+    /**
+     * Check whether the violation archive has finished loading, so its histories are complete.
+     * @return Whether lifetime histories are complete
+     */
+    public boolean isArchiveReady() {
+        return archive.isReady();
+    }
+    
+    /**
+     * Get the catalog of players with a report file.
+     * @return The report catalog
      */
-    public record Violation(String type, String details, String timestamp) {
+    public ReportCatalog getReportCatalog() {
+        return reportCatalog;
+    }
+    
+    /**
+     * A single violation, kept as its type, time and values.
+     * The readable details and timestamp are rendered on demand.
+     */
+    public static final class Violation {
+        private static final DateTimeFormatter TIMESTAMP_FORMAT =
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+        
+        // The last rendered timestamp, shared since violations come in bursts within the same second
+        private static volatile RenderedSecond lastTimestamp = new RenderedSecond(Long.MIN_VALUE, "");
+        
+        private final ViolationType type;
+        private final long timeMillis;
+        private final String detailFormat;
+        private final double[] values;
+        
+        // Rendered once and shared by the report file, the console, admins and commands
+        private volatile String details;
+        
+        /**
+         * Create a new violation.
+         * @param type The type of violation
+         * @param timeMillis The time of the violation as epoch millis
+         * @param detailFormat Format string of the details, with a specifier for each value
+         * @param values The values describing the violation, the one that triggered it first
+         */
+        public Violation(ViolationType type, long timeMillis, String detailFormat, double[] values) {
+            this.type = type;
+            this.timeMillis = timeMillis;
+            this.detailFormat = detailFormat;
+            this.values = values;
+        }
+        
+        public ViolationType type() {
+            return type;
+        }
+        
+        public long timeMillis() {
+            return timeMillis;
+        }
+        
+        public String detailFormat() {
+            return detailFormat;
+        }
+        
+        public double[] values() {
+            return values;
+        }
+        
+        /**
+         * Render the details of the violation, formatting them on the first call only.
+         * @return The details
+         */
+        public String details() {
+            String rendered = details;
+            if (rendered == null) {
+                Object[] arguments = new Object[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    arguments[i] = values[i];
+                }
+                // Threads racing here render the same string, so either result may be kept
+                rendered = String.format(Locale.ROOT, detailFormat, arguments);
+                details = rendered;
+            }
+            return rendered;
+        }
+        
+        /**
+         * Render the time of the violation to the second.
+         * @return The timestamp
+         */
+        public String timestamp() {
+            long second = Math.floorDiv(timeMillis, 1000);
+            RenderedSecond rendered = lastTimestamp;
+            if (rendered.second() != second) {
+                rendered = new RenderedSecond(second, TIMESTAMP_FORMAT.format(Instant.ofEpochSecond(second)));
+                lastTimestamp = rendered;
+            }
+            return rendered.text();
+        }
+        
+        /**
+         * Get the value that triggered the violation.
+         * @return The first value, or NaN if there is none
+         */
+        public double measurement() {
+            return values.length > 0 ? values[0] : Double.NaN;
+        }
+        
+        private record RenderedSecond(long second, String text) {
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.minecraft.cheatdetector.report;
+
+/**
+ * The kinds of violation the detectors report.
+ */
+public enum ViolationType {
+    SPEED_HACK("SpeedHack", "Speed Hack"),
+    FLY_HACK("FlyHack", "Fly Hack"),
+    FLIGHT_HACK("FlightHack", "Flight Hack"),
+    SLOW_FALL_HACK("SlowFallHack", "Slow Fall Hack"),
+    XRAY("XRay", "X-Ray"),
+    KILL_AURA("KillAura", "KillAura"),
+    REACH_HACK("ReachHack", "Reach Hack");
+    
+    private final String id;
+    private final String displayName;
+    
+    ViolationType(String id, String displayName) {
+        this.id = id;
+        this.displayName = displayName;
+    }
+    
+    /**
+     * Get the identifier written to report files, the archive and the console.
+     * @return The identifier
+     */
+    public String getId() {
+        return id;
+    }
+    
+    /**
+     * Get the name shown to admins.
+     * @return The display name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,71 @@
+package com.minecraft.cheatdetector.scheduler;
+
+/**
+ * Time source of the detectors and player data.
+ * The server tick and time are captured once at the start of every tick, so
+ * everything checked during a tick sees the same time and reading it costs
+ * nothing. Time comes from {@link System#nanoTime()} anchored to the wall clock
+ * once at creation, so it never jumps when the system clock is corrected.
+ * Replays and tests set the time explicitly instead.
+ */
+public class DetectorClock {
+    private final long originMillis;
+    private final long originNanos;
+    
+    // Snapshot of the current tick, only written by the server thread
+    private long tick;
+    private long millis;
+    
+    /**
+     * Create a clock starting at the current wall-clock time.
+     */
+    public DetectorClock() {
+        this.originMillis = System.currentTimeMillis();
+        this.originNanos = System.nanoTime();
+        this.millis = originMillis;
+    }
+    
+    /**
+     * Capture the time of a new tick. Called once at the start of every server tick.
+     * @param tick The server tick number
+     */
+    public void update(long tick) {
+        this.tick = tick;
+        this.millis = currentMillis();
+    }
+    
+    /**
+     * Set the time explicitly, as when replaying a trace.
+     * @param tick The tick number
+     * @param millis The time in milliseconds
+     */
+    public void set(long tick, long millis) {
+        this.tick = tick;
+        this.millis = millis;
+    }
+    
+    /**
+     * Get the number of the current tick.
+     * @return The tick number
+     */
+    public long getTick() {
+        return tick;
+    }
+    
+    /**
+     * Get the time captured at the start of the current tick.
+     * @return The time in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+    
+    /**
+     * Read the time now, on the same scale as {@link #getMillis()}.
+     * Safe to call from any thread, for events that happen between ticks.
+     * @return The current time in milliseconds
+     */
+    public long currentMillis() {
+        return originMillis + (System.nanoTime() - originNanos) / 1_000_000;
+    }
+}
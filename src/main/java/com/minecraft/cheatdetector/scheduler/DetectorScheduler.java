@@ -0,0 +1,176 @@
+package com.minecraft.cheatdetector.scheduler;
+
+import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.metrics.PerfMetric;
+import com.minecraft.cheatdetector.metrics.PerfMonitor;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Runs the per-player detector checks within a fixed time budget per tick.
+ * Each check walks the online players in passes at its own cadence; when the
+ * budget runs out mid-pass, the remaining players are carried over to the next
+ * tick instead of being checked late in the same one. Checks driven by events
+ * only walk the players an event asked for, so passes with nothing to do cost nothing.
+ */
+public class DetectorScheduler {
+    private final ModConfig config;
+    private final PerfMonitor perfMonitor;
+    private final Predicate<ServerPlayerEntity> eligible;
+    private final List<ScheduledCheck> checks = new ArrayList<>();
+    
+    /**
+     * Create a new detector scheduler.
+     * @param config The mod configuration
+     * @param perfMonitor The monitor timing each check
+     * @param eligible Filter deciding which players are checked at all
+     */
+    public DetectorScheduler(ModConfig config, PerfMonitor perfMonitor, Predicate<ServerPlayerEntity> eligible) {
+        this.config = config;
+        this.perfMonitor = perfMonitor;
+        this.eligible = eligible;
+    }
+    
+    /**
+     * Register a per-player check.
+     * @param name The name of the check, used for logging and as its metric name
+     * @param intervalTicks Supplies the number of ticks between the starts of two passes
+     * @param check The check to run on each player
+     */
+    public void register(String name, IntSupplier intervalTicks, Consumer<ServerPlayerEntity> check) {
+        checks.add(new ScheduledCheck(name, intervalTicks, check, null));
+    }
+    
+    /**
+     * Register a per-player check that only runs on the players waiting for it.
+     * @param name The name of the check, used for logging and as its metric name
+     * @param intervalTicks Supplies the number of ticks between the starts of two passes
+     * @param check The check to run on each player
+     * @param pendingPlayers Moves the players waiting for the check into the list of a new pass
+     */
+    public void register(String name, IntSupplier intervalTicks, Consumer<ServerPlayerEntity> check,
+                         Consumer<List<ServerPlayerEntity>> pendingPlayers) {
+        checks.add(new ScheduledCheck(name, intervalTicks, check, pendingPlayers));
+    }
+    
+    /**
+     * Run all due checks for the current tick.
+     * @param server The server being ticked
+     */
+    public void tick(MinecraftServer server) {
+        List<ServerPlayerEntity> players = server.getPlayerManager().getPlayerList();
+        long tick = server.getTicks();
+        long budgetNanos = config.getDetectorTickBudgetMicros() * 1000L;
+        
+        for (ScheduledCheck check : checks) {
+            if (!check.hasPendingPlayers()) {
+                // Wait for the next pass unless the previous one overran its interval
+                if (tick < check.nextPassTick || players.isEmpty()) {
+                    continue;
+                }
+                check.startPass(players, tick);
+            }
+            
+            check.run(budgetNanos);
+        }
+    }
+    
+    /**
+     * Get the number of ticks on which a check ran out of budget before finishing its pass.
+     * @param name The name of the check
+     * @return The number of starved ticks, or 0 if no such check is registered
+     */
+    public long getStarvedTicks(String name) {
+        for (ScheduledCheck check : checks) {
+            if (check.name.equals(name)) {
+                return check.starvedTicks;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * A registered check together with the state of its current pass.
+     */
+    private final class ScheduledCheck {
+        private final String name;
+        private final IntSupplier intervalTicks;
+        private final Consumer<ServerPlayerEntity> check;
+        // Supplies the players of each pass, or null to walk every eligible online player
+        private final Consumer<List<ServerPlayerEntity>> pendingPlayers;
+        private final PerfMetric metric;
+        
+        // Players of the current pass and the position of the next one to check
+        private final List<ServerPlayerEntity> pass = new ArrayList<>();
+        private int cursor;
+        private long nextPassTick;
+        private long starvedTicks;
+        
+        private ScheduledCheck(String name, IntSupplier intervalTicks, Consumer<ServerPlayerEntity> check,
+                               Consumer<List<ServerPlayerEntity>> pendingPlayers) {
+            this.name = name;
+            this.intervalTicks = intervalTicks;
+            this.check = check;
+            this.pendingPlayers = pendingPlayers;
+            this.metric = perfMonitor.metric("detector." + name);
+        }
+        
+        private boolean hasPendingPlayers() {
+            return cursor < pass.size();
+        }
+        
+        private void startPass(List<ServerPlayerEntity> players, long tick) {
+            pass.clear();
+            cursor = 0;
+            if (pendingPlayers != null) {
+                pendingPlayers.accept(pass);
+            } else {
+                for (ServerPlayerEntity player : players) {
+                    if (eligible.test(player)) {
+                        pass.add(player);
+                    }
+                }
+            }
+            nextPassTick = tick + Math.max(1, intervalTicks.getAsInt());
+        }
+        
+        private void run(long budgetNanos) {
+            long deadline = System.nanoTime() + budgetNanos;
+            
+            // Always check at least one player so a starved pass still makes progress
+            while (cursor < pass.size()) {
+                ServerPlayerEntity player = pass.get(cursor++);
+                
+                // Skip players who left since the pass started
+                if (player.isRemoved() || player.isDisconnected()) {
+                    continue;
+                }
+                
+                metric.begin();
+                try {
+                    check.accept(player);
+                } finally {
+                    metric.end();
+                }
+                
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+            
+            if (hasPendingPlayers()) {
+                starvedTicks++;
+            } else {
+                // Drop player references once the pass is complete
+                pass.clear();
+                cursor = 0;
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.minecraft.cheatdetector.test;
 import com.minecraft.cheatdetector.CheatDetector;
 import com.minecraft.cheatdetector.cheat.SpeedHackDetector;
 import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.data.Vec3RingBuffer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -73,7 +74,7 @@ public class TestSpeedHackDetector {
             try {
                 // Simulate normal movement first (as baseline)
                 player.sendMessage(Text.literal("§aSimulating normal movement for 2 seconds..."), false);
-                long startTime = System.currentTimeMillis();
+                long startTime = CheatDetector.getInstance().getClock().currentMillis();
                 
                 // Over 2 seconds, simulate 10 normal movement updates
                 for (int i = 0; i < 10; i++) {
@@ -82,8 +83,7 @@ public class TestSpeedHackDetector {
                     long newTime = startTime + (i * 200); // 200ms intervals
                     
                     // Manually update player data to simulate movement
-                    playerData.setLastPosition(newPos);
-                    playerData.setLastPositionTime(newTime);
+                    playerData.setLastPosition(newPos, newTime);
                     
                     // Add normal running speed to data (around 6 blocks/sec)
                     playerData.addMovementSpeed(6.0 + (Math.random() * 0.5));
@@ -94,7 +94,7 @@ public class TestSpeedHackDetector {
                 
                 // Now simulate speed hacking
                 player.sendMessage(Text.literal("§cSimulating speed hack for 3 seconds..."), false);
-                startTime = System.currentTimeMillis();
+                startTime = CheatDetector.getInstance().getClock().currentMillis();
                 
                 // Over 3 seconds, simulate 15 very fast movement updates
                 for (int i = 0; i < 15; i++) {
@@ -103,8 +103,7 @@ public class TestSpeedHackDetector {
                     long newTime = startTime + (i * 200); // 200ms intervals
                     
                     // Manually update player data
-                    playerData.setLastPosition(newPos);
-                    playerData.setLastPositionTime(newTime);
+                    playerData.setLastPosition(newPos, newTime);
                     
                     // Add impossible speed to data (around 30-35 blocks/sec)
                     playerData.addMovementSpeed(30.0 + (Math.random() * 5.0));
@@ -145,11 +144,11 @@ public class TestSpeedHackDetector {
         Thread simulationThread = new Thread(() -> {
             try {
                 player.sendMessage(Text.literal("§cSimulating flight hack for 3 seconds..."), false);
-                long startTime = System.currentTimeMillis();
+                long startTime = CheatDetector.getInstance().getClock().currentMillis();
                 
                 // Get player's current positions
                 Vec3d currentPos = player.getPos();
-                List<Vec3d> positionHistory = playerData.getPositionHistory();
+                Vec3RingBuffer positionHistory = playerData.getPositionHistory();
                 
                 // Clear any existing position history
                 positionHistory.clear();
@@ -160,11 +159,10 @@ public class TestSpeedHackDetector {
                     Vec3d newPos = startPos.add(i * 0.2, i * 0.5, i * 0.2);
                     
                     // Add to position history
-                    positionHistory.add(newPos);
+                    positionHistory.add(newPos.x, newPos.y, newPos.z);
                     
                     // Set current position for the next check
-                    playerData.setLastPosition(newPos);
-                    playerData.setLastPositionTime(startTime + (i * 200));
+                    playerData.setLastPosition(newPos, startTime + (i * 200));
                     
                     // Force player to be in the air
                     playerData.setGroundState(false, startTime + (i * 200));
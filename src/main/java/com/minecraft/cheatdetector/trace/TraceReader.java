@@ -0,0 +1,149 @@
+package com.minecraft.cheatdetector.trace;
+
+import com.minecraft.cheatdetector.analysis.PlayerSample;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads a binary movement trace written by {@link TraceWriter}.
+ */
+public class TraceReader {
+    
+    /**
+     * Receives the records of a trace in file order.
+     */
+    public interface Visitor {
+        
+        /**
+         * Called when a player appears in the trace for the first time.
+         * @param index The player's index within the trace
+         * @param playerUuid The player's UUID
+         * @param playerName The player's name
+         */
+        void onPlayer(int index, UUID playerUuid, String playerName);
+        
+        /**
+         * Called for every player sample.
+         * @param index The player's index within the trace
+         * @param sample The sample
+         */
+        void onSample(int index, PlayerSample sample);
+        
+        /**
+         * Called for every attack.
+         * @param index The attacker's index within the trace
+         * @param targetUuid The UUID of the attacked entity
+         * @param time The time of the attack in milliseconds
+         */
+        void onAttack(int index, UUID targetUuid, long time);
+    }
+    
+    private final Path file;
+    
+    /**
+     * Create a reader for a trace file.
+     * @param file The trace file
+     */
+    public TraceReader(Path file) {
+        this.file = file;
+    }
+    
+    /**
+     * Read the whole trace, passing each record to the visitor.
+     * A record cut short at the end of the file, as left by a crash, ends the trace.
+     * @param visitor The visitor to pass the records to
+     * @throws IOException If the file cannot be read or is not a trace
+     */
+    public void read(Visitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != TraceWriter.MAGIC) {
+                throw new IOException("Not a movement trace: " + file);
+            }
+            short version = in.readShort();
+            if (version < 1 || version > TraceWriter.VERSION) {
+                throw new IOException("Unsupported trace version " + version + ": " + file);
+            }
+            long startTime = in.readLong();
+            
+            List<UUID> players = new ArrayList<>();
+            int tag;
+            while ((tag = in.read()) != -1) {
+                try {
+                    switch (tag) {
+                        case TraceWriter.TAG_PLAYER -> readPlayer(in, players, visitor);
+                        case TraceWriter.TAG_SAMPLE -> readSample(in, version, startTime, players, visitor);
+                        case TraceWriter.TAG_ATTACK -> readAttack(in, startTime, visitor);
+                        default -> throw new IOException("Corrupt trace record tag " + tag + ": " + file);
+                    }
+                } catch (EOFException e) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private static void readPlayer(DataInputStream in, List<UUID> players, Visitor visitor) throws IOException {
+        int index = in.readUnsignedShort();
+        UUID playerUuid = new UUID(in.readLong(), in.readLong());
+        byte[] name = new byte[in.readUnsignedShort()];
+        in.readFully(name);
+        
+        while (players.size() <= index) {
+            players.add(null);
+        }
+        players.set(index, playerUuid);
+        visitor.onPlayer(index, playerUuid, new String(name, StandardCharsets.UTF_8));
+    }
+    
+    private static void readSample(DataInputStream in, short version, long startTime, List<UUID> players, Visitor visitor) throws IOException {
+        int index = in.readUnsignedShort();
+        long time = startTime + in.readInt();
+        double x = in.readDouble();
+        double y = in.readDouble();
+        double z = in.readDouble();
+        float velocityX = in.readFloat();
+        float velocityY = in.readFloat();
+        float velocityZ = in.readFloat();
+        int flags = in.readUnsignedByte();
+        int speedLevel = in.readByte();
+        int slownessLevel = in.readByte();
+        int jumpBoostLevel = in.readByte();
+        int levitationLevel = in.readByte();
+        int slowFallingLevel = in.readByte();
+        int latency = in.readShort();
+        // Version 1 traces were polled and have no tick counts
+        int moveTicks = version >= 2 ? in.readShort() : 0;
+        
+        if (index >= players.size() || players.get(index) == null) {
+            throw new IOException("Trace sample for unknown player " + index);
+        }
+        
+        visitor.onSample(index, new PlayerSample(players.get(index), time,
+                x, y, z, velocityX, velocityY, velocityZ,
+                (flags & TraceWriter.FLAG_ON_GROUND) != 0,
+                (flags & TraceWriter.FLAG_SPRINTING) != 0,
+                (flags & TraceWriter.FLAG_TOUCHING_WATER) != 0,
+                (flags & TraceWriter.FLAG_CREATIVE_OR_SPECTATOR) != 0,
+                (flags & TraceWriter.FLAG_ALLOW_FLYING) != 0,
+                (flags & TraceWriter.FLAG_FALL_FLYING) != 0,
+                (flags & TraceWriter.FLAG_RIDING) != 0,
+                speedLevel, slownessLevel, jumpBoostLevel, levitationLevel, slowFallingLevel,
+                latency, moveTicks));
+    }
+    
+    private static void readAttack(DataInputStream in, long startTime, Visitor visitor) throws IOException {
+        int index = in.readUnsignedShort();
+        long time = startTime + in.readInt();
+        UUID targetUuid = new UUID(in.readLong(), in.readLong());
+        visitor.onAttack(index, targetUuid, time);
+    }
+}
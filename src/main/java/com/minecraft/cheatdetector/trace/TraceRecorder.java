@@ -0,0 +1,134 @@
+package com.minecraft.cheatdetector.trace;
+
+import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.analysis.PlayerSample;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Records the player samples fed to the movement detectors and attacks to a movement trace file,
+ * for replaying the detectors offline with {@link TraceReplay}.
+ * Only used on the server thread.
+ */
+public class TraceRecorder {
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private final Path tracesDirectory;
+    private final DetectorClock clock;
+    
+    private TraceWriter writer;
+    private Path file;
+    
+    // The only player recorded, or null to record everyone
+    private UUID playerFilter;
+    
+    /**
+     * Create a new trace recorder.
+     * @param tracesDirectory The directory new traces are written to
+     * @param clock The clock the recorded times are read from
+     */
+    public TraceRecorder(Path tracesDirectory, DetectorClock clock) {
+        this.tracesDirectory = tracesDirectory;
+        this.clock = clock;
+    }
+    
+    /**
+     * Create a new trace recorder writing to the "traces" directory.
+     * @param clock The clock the recorded times are read from
+     */
+    public TraceRecorder(DetectorClock clock) {
+        this(Paths.get("traces"), clock);
+    }
+    
+    /**
+     * Start recording to a new trace file.
+     * @param playerFilter The only player to record, or null to record all players
+     * @return The trace file
+     * @throws IOException If the file cannot be created
+     */
+    public Path start(UUID playerFilter) throws IOException {
+        if (isRecording()) {
+            stop();
+        }
+        
+        long now = clock.getMillis();
+        Path traceFile = tracesDirectory.resolve("trace-" + FILE_DATE_FORMAT.format(LocalDateTime.now()) + ".cdt");
+        
+        this.writer = new TraceWriter(traceFile, now);
+        this.file = traceFile;
+        this.playerFilter = playerFilter;
+        CheatDetector.LOGGER.info("Started recording movement trace to {}", traceFile);
+        return traceFile;
+    }
+    
+    /**
+     * Stop recording and close the trace file.
+     * @return The closed trace file, or null if nothing was being recorded
+     */
+    public Path stop() {
+        if (!isRecording()) {
+            return null;
+        }
+        
+        writer.close();
+        CheatDetector.LOGGER.info("Stopped recording movement trace to {}: {} samples, {} attacks",
+                file, writer.getSampleCount(), writer.getAttackCount());
+        
+        Path closed = file;
+        writer = null;
+        file = null;
+        playerFilter = null;
+        return closed;
+    }
+    
+    /**
+     * Check if a trace is being recorded.
+     * @return true if recording, false otherwise
+     */
+    public boolean isRecording() {
+        return writer != null;
+    }
+    
+    /**
+     * Get the number of samples in the current trace.
+     * @return The sample count, or 0 if nothing is being recorded
+     */
+    public long getSampleCount() {
+        return writer != null ? writer.getSampleCount() : 0;
+    }
+    
+    /**
+     * Record a sample of a player, as fed to the movement detectors.
+     * @param sample The sample
+     * @param playerName The player's name
+     */
+    public void recordSample(PlayerSample sample, String playerName) {
+        if (isRecording() && (playerFilter == null || playerFilter.equals(sample.playerUuid()))) {
+            writer.writeSample(sample, playerName);
+        }
+    }
+    
+    /**
+     * Record an attack by a player.
+     * @param player The attacking player
+     * @param target The attacked entity
+     * @param time The time of the attack in milliseconds
+     */
+    public void recordAttack(ServerPlayerEntity player, Entity target, long time) {
+        if (isRecording() && isRecorded(player)) {
+            writer.writeAttack(player.getUuid(), player.getName().getString(), target.getUuid(), time);
+        }
+    }
+    
+    private boolean isRecorded(ServerPlayerEntity player) {
+        return playerFilter == null || playerFilter.equals(player.getUuid());
+    }
+}
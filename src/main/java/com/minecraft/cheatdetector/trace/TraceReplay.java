@@ -0,0 +1,187 @@
+package com.minecraft.cheatdetector.trace;
+
+import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.analysis.PlayerSample;
+import com.minecraft.cheatdetector.analysis.PopulationBaselines;
+import com.minecraft.cheatdetector.cheat.CombatHackDetector;
+import com.minecraft.cheatdetector.cheat.FlightDetector;
+import com.minecraft.cheatdetector.cheat.SpeedHackDetector;
+import com.minecraft.cheatdetector.config.ModConfig;
+import com.minecraft.cheatdetector.data.PlayerDataManager;
+import com.minecraft.cheatdetector.lagcomp.LagCompensator;
+import com.minecraft.cheatdetector.report.ViolationManager;
+import com.minecraft.cheatdetector.scheduler.DetectorClock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Feeds recorded movement traces through the detectors without a server.
+ * Samples are replayed back to back, as fast as the detectors can take them,
+ * using the timestamps stored in the trace. Each trace starts from fresh player data.
+ * The speed, flight and attack timing checks only read the player's data and the
+ * recorded sample, never a live player or world, so they judge replayed input
+ * with the same code as live input.
+ *
+ * The multi-angle kill aura and reach checks need the world and are not replayed.
+ */
+public class TraceReplay {
+    private final ModConfig config;
+    private final Path reportsDirectory;
+    
+    /**
+     * Create a new trace replay.
+     * @param config The configuration to replay with; its analysis setting is ignored and always inline
+     * @param reportsDirectory The directory the replayed violations are reported to
+     */
+    public TraceReplay(ModConfig config, Path reportsDirectory) {
+        this.config = config;
+        this.reportsDirectory = reportsDirectory;
+    }
+    
+    /**
+     * Replay a trace.
+     * @param trace The trace file
+     * @return The detections and throughput of the replay
+     * @throws IOException If the trace cannot be read
+     */
+    public Result replay(Path trace) throws IOException {
+        ViolationManager violationManager = new ViolationManager(config, reportsDirectory);
+        Map<String, Long> detections = new TreeMap<>();
+        violationManager.addListener((playerUuid, playerName, violation) ->
+                detections.merge(violation.type().getId(), 1L, Long::sum));
+        
+        ReplayVisitor visitor = new ReplayVisitor(violationManager);
+        long elapsedNanos;
+        try {
+            long start = System.nanoTime();
+            new TraceReader(trace).read(visitor);
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            violationManager.close();
+        }
+        
+        return new Result(trace, visitor.samples, visitor.attacks, elapsedNanos, detections);
+    }
+    
+    /**
+     * Replays the traces given on the command line and logs the results.
+     * Uses the configuration in the working directory.
+     * @param args The trace files
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TraceReplay <trace file>...");
+            System.exit(1);
+        }
+        
+        TraceReplay replay = new TraceReplay(new ModConfig(), Paths.get("replay-reports"));
+        for (String arg : args) {
+            Result result = replay.replay(Paths.get(arg));
+            CheatDetector.LOGGER.info("Replayed {}: {} samples, {} attacks in {} ms ({} samples/s)",
+                    result.trace(), result.samples(), result.attacks(), result.elapsedNanos() / 1_000_000,
+                    String.format("%.0f", result.samplesPerSecond()));
+            result.detections().forEach((type, count) -> CheatDetector.LOGGER.info("  {}: {}", type, count));
+        }
+    }
+    
+    /**
+     * Outcome of replaying one trace.
+     * @param trace The replayed trace file
+     * @param samples The number of player samples replayed
+     * @param attacks The number of attacks replayed
+     * @param elapsedNanos The time the replay took
+     * @param detections The number of violations logged, by violation type
+     */
+    public record Result(Path trace, long samples, long attacks, long elapsedNanos, Map<String, Long> detections) {
+        
+        /**
+         * Get the replay throughput.
+         * @return The number of samples replayed per second
+         */
+        public double samplesPerSecond() {
+            return elapsedNanos > 0 ? samples * 1_000_000_000.0 / elapsedNanos : 0;
+        }
+    }
+    
+    /**
+     * Drives the detectors from the records of one trace.
+     */
+    private final class ReplayVisitor implements TraceReader.Visitor {
+        private final SpeedHackDetector speedHackDetector;
+        private final FlightDetector flightDetector;
+        private final CombatHackDetector combatHackDetector;
+        
+        // Set to the time of each record before it is replayed; traces keep no tick numbers
+        private final DetectorClock clock = new DetectorClock();
+        
+        // Per-player state by trace index
+        private final List<String> names = new ArrayList<>();
+        private final List<PlayerDataManager.PlayerData> data = new ArrayList<>();
+        private final List<PlayerSample> lastSamples = new ArrayList<>();
+        
+        private long samples;
+        private long attacks;
+        
+        private ReplayVisitor(ViolationManager violationManager) {
+            // Detectors only use their data manager for live players, never during replay
+            PlayerDataManager playerDataManager = new PlayerDataManager(clock);
+            // A fresh baseline never gets established, so replays judge by the configured constants
+            PopulationBaselines populationBaselines = new PopulationBaselines(config);
+            this.speedHackDetector = new SpeedHackDetector(violationManager, config, playerDataManager, clock, populationBaselines);
+            this.flightDetector = new FlightDetector(violationManager, config, playerDataManager, clock);
+            this.combatHackDetector = new CombatHackDetector(violationManager, config, clock, new LagCompensator(config),
+                    populationBaselines);
+        }
+        
+        @Override
+        public void onPlayer(int index, UUID playerUuid, String playerName) {
+            while (names.size() <= index) {
+                names.add(null);
+                data.add(null);
+                lastSamples.add(null);
+            }
+            names.set(index, playerName);
+        }
+        
+        @Override
+        public void onSample(int index, PlayerSample sample) {
+            clock.set(0, sample.time());
+            PlayerDataManager.PlayerData playerData = data.get(index);
+            if (playerData == null) {
+                // Start tracking at the player's first sample, as a live join would
+                playerData = new PlayerDataManager.PlayerData(sample.playerUuid(), names.get(index),
+                        sample.position(), sample.onGround(), sample.time());
+                data.set(index, playerData);
+            }
+            
+            speedHackDetector.evaluate(playerData, sample);
+            flightDetector.evaluate(playerData, sample);
+            playerData.setClientAheadMillis(sample.clientAheadMillis(playerData.getLastPositionTime(), playerData.getClientAheadMillis()));
+            playerData.setLastPosition(sample.x(), sample.y(), sample.z(), sample.time());
+            lastSamples.set(index, sample);
+            samples++;
+        }
+        
+        @Override
+        public void onAttack(int index, UUID targetUuid, long time) {
+            clock.set(0, time);
+            PlayerDataManager.PlayerData playerData = index < data.size() ? data.get(index) : null;
+            PlayerSample lastSample = playerData != null ? lastSamples.get(index) : null;
+            
+            // Creative players are not checked for kill aura
+            if (lastSample == null || lastSample.creativeOrSpectator()) {
+                return;
+            }
+            
+            combatHackDetector.evaluateAttack(playerData, targetUuid, time);
+            attacks++;
+        }
+    }
+}
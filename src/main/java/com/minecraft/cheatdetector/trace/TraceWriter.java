@@ -0,0 +1,235 @@
+package com.minecraft.cheatdetector.trace;
+
+import com.minecraft.cheatdetector.CheatDetector;
+import com.minecraft.cheatdetector.analysis.PlayerSample;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a binary movement trace.
+ * Records are encoded into a buffer on the calling thread; full buffers are
+ * written to the file by a background thread.
+ *
+ * Layout: int magic, short version, long start time, then records that each
+ * start with a tag byte:
+ * PLAYER: short index, long UUID high bits, long UUID low bits, short name length, UTF-8 name.
+ * SAMPLE: short index, int time offset, double x, y, z, float velocity x, y, z,
+ * byte flags, byte speed, slowness, jump boost, levitation and slow falling levels, short latency,
+ * short client ticks moved (version 2 and later).
+ * ATTACK: short index, int time offset, long target UUID high bits, long target UUID low bits.
+ * Time offsets are milliseconds since the start time.
+ */
+public class TraceWriter {
+    static final int MAGIC = 0x43445452;
+    static final short VERSION = 2;
+    
+    static final byte TAG_PLAYER = 1;
+    static final byte TAG_SAMPLE = 2;
+    static final byte TAG_ATTACK = 3;
+    
+    static final int FLAG_ON_GROUND = 1;
+    static final int FLAG_SPRINTING = 1 << 1;
+    static final int FLAG_TOUCHING_WATER = 1 << 2;
+    static final int FLAG_CREATIVE_OR_SPECTATOR = 1 << 3;
+    static final int FLAG_ALLOW_FLYING = 1 << 4;
+    static final int FLAG_FALL_FLYING = 1 << 5;
+    static final int FLAG_RIDING = 1 << 6;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_NAME_BYTES = 256;
+    
+    // Largest possible record, a player record with the longest name
+    private static final int MAX_RECORD_SIZE = 1 + 2 + 16 + 2 + MAX_NAME_BYTES;
+    
+    private final FileChannel channel;
+    private final long startTime;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CheatDetector-Trace");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Index of every player seen so far, assigned in order of appearance
+    private final Map<UUID, Integer> playerIndexes = new HashMap<>();
+    
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long sampleCount;
+    private long attackCount;
+    
+    /**
+     * Create a new trace file and write its header.
+     * @param file The trace file
+     * @param startTime The time the trace starts at, in milliseconds
+     * @throws IOException If the file cannot be created
+     */
+    public TraceWriter(Path file, long startTime) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.startTime = startTime;
+        
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putLong(startTime);
+    }
+    
+    /**
+     * Append a player sample.
+     * @param sample The sample
+     * @param playerName The player's name, stored the first time the player appears
+     */
+    public void writeSample(PlayerSample sample, String playerName) {
+        int index = playerIndex(sample.playerUuid(), playerName);
+        ensureCapacity();
+        
+        int flags = (sample.onGround() ? FLAG_ON_GROUND : 0)
+                | (sample.sprinting() ? FLAG_SPRINTING : 0)
+                | (sample.touchingWater() ? FLAG_TOUCHING_WATER : 0)
+                | (sample.creativeOrSpectator() ? FLAG_CREATIVE_OR_SPECTATOR : 0)
+                | (sample.allowFlying() ? FLAG_ALLOW_FLYING : 0)
+                | (sample.fallFlying() ? FLAG_FALL_FLYING : 0)
+                | (sample.riding() ? FLAG_RIDING : 0);
+        
+        buffer.put(TAG_SAMPLE);
+        buffer.putShort((short) index);
+        buffer.putInt(timeOffset(sample.time()));
+        buffer.putDouble(sample.x());
+        buffer.putDouble(sample.y());
+        buffer.putDouble(sample.z());
+        buffer.putFloat((float) sample.velocityX());
+        buffer.putFloat((float) sample.velocityY());
+        buffer.putFloat((float) sample.velocityZ());
+        buffer.put((byte) flags);
+        buffer.put(clampLevel(sample.speedLevel()));
+        buffer.put(clampLevel(sample.slownessLevel()));
+        buffer.put(clampLevel(sample.jumpBoostLevel()));
+        buffer.put(clampLevel(sample.levitationLevel()));
+        buffer.put(clampLevel(sample.slowFallingLevel()));
+        buffer.putShort((short) Math.min(sample.latency(), Short.MAX_VALUE));
+        buffer.putShort((short) Math.min(sample.moveTicks(), Short.MAX_VALUE));
+        sampleCount++;
+    }
+    
+    /**
+     * Append an attack.
+     * @param playerUuid The attacker's UUID
+     * @param playerName The attacker's name, stored the first time the player appears
+     * @param targetUuid The UUID of the attacked entity
+     * @param time The time of the attack in milliseconds
+     */
+    public void writeAttack(UUID playerUuid, String playerName, UUID targetUuid, long time) {
+        int index = playerIndex(playerUuid, playerName);
+        ensureCapacity();
+        
+        buffer.put(TAG_ATTACK);
+        buffer.putShort((short) index);
+        buffer.putInt(timeOffset(time));
+        buffer.putLong(targetUuid.getMostSignificantBits());
+        buffer.putLong(targetUuid.getLeastSignificantBits());
+        attackCount++;
+    }
+    
+    /**
+     * Get the number of samples written so far.
+     * @return The sample count
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+    
+    /**
+     * Get the number of attacks written so far.
+     * @return The attack count
+     */
+    public long getAttackCount() {
+        return attackCount;
+    }
+    
+    /**
+     * Write everything still buffered and close the file.
+     */
+    public void close() {
+        flush();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                CheatDetector.LOGGER.warn("Timed out writing movement trace");
+            }
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            CheatDetector.LOGGER.error("Failed to close movement trace: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Get the index of a player, writing a player record the first time they appear.
+     */
+    private int playerIndex(UUID playerUuid, String playerName) {
+        Integer index = playerIndexes.get(playerUuid);
+        if (index != null) {
+            return index;
+        }
+        
+        index = playerIndexes.size();
+        playerIndexes.put(playerUuid, index);
+        
+        byte[] name = playerName.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+        
+        ensureCapacity();
+        buffer.put(TAG_PLAYER);
+        buffer.putShort(index.shortValue());
+        buffer.putLong(playerUuid.getMostSignificantBits());
+        buffer.putLong(playerUuid.getLeastSignificantBits());
+        buffer.putShort((short) nameLength);
+        buffer.put(name, 0, nameLength);
+        return index;
+    }
+    
+    private int timeOffset(long time) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, time - startTime));
+    }
+    
+    private static byte clampLevel(int level) {
+        return (byte) Math.min(level, Byte.MAX_VALUE);
+    }
+    
+    private void ensureCapacity() {
+        if (buffer.remaining() < MAX_RECORD_SIZE) {
+            flush();
+        }
+    }
+    
+    /**
+     * Hand the current buffer to the writer thread and start a new one.
+     */
+    private void flush() {
+        ByteBuffer full = buffer;
+        full.flip();
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        
+        writer.execute(() -> {
+            try {
+                while (full.hasRemaining()) {
+                    channel.write(full);
+                }
+            } catch (IOException e) {
+                CheatDetector.LOGGER.error("Failed to write movement trace: " + e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.minecraft.cheatdetector.cheat;
+
+import com.minecraft.cheatdetector.data.MiningTrail;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which ores count as tunnelled towards, so strip miners are not taken for X-ray users.
+ */
+class XrayDetectorTest {
+    private static final long NOW = 10000;
+    
+    @Test
+    void oreInTunnelWallIsNotTunnelledTowards() {
+        MiningTrail trail = tunnel(false);
+        
+        // Beside the head, and beside a block halfway along the tunnel
+        assertFalse(XrayDetector.isTunnelTowards(trail, 5, 0, 1, NOW));
+        assertFalse(XrayDetector.isTunnelTowards(trail, 2, 0, -1, NOW));
+        assertTrue(trail.touches(5, 0, 1));
+        assertTrue(trail.touches(2, 0, -1));
+    }
+    
+    @Test
+    void oreAheadOfTunnelIsTunnelledTowards() {
+        assertTrue(XrayDetector.isTunnelTowards(tunnel(false), 6, 0, 0, NOW));
+        // Two blocks high, the head may be the upper block while the ore is level with the lower one
+        assertTrue(XrayDetector.isTunnelTowards(tunnel(true), 6, 0, 0, NOW));
+    }
+    
+    @Test
+    void oreBehindTunnelIsNotTunnelledTowards() {
+        assertFalse(XrayDetector.isTunnelTowards(tunnel(false), -1, 0, 0, NOW));
+    }
+    
+    /**
+     * Build a straight tunnel along the x axis from (0, 0, 0) to (5, 0, 0), mined one block per second.
+     * @param twoHigh Whether the block above each one was mined right after it
+     */
+    private static MiningTrail tunnel(boolean twoHigh) {
+        MiningTrail trail = new MiningTrail(16);
+        long time = NOW - 12000;
+        for (int x = 0; x <= 5; x++) {
+            trail.add(x, 0, 0, time += 1000);
+            if (twoHigh) {
+                trail.add(x, 1, 0, time += 1000);
+            }
+        }
+        return trail;
+    }
+}
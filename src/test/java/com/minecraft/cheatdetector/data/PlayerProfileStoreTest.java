@@ -0,0 +1,73 @@
+package com.minecraft.cheatdetector.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that profiles survive reopening the store, including after a crash mid-write.
+ */
+class PlayerProfileStoreTest {
+    private static final UUID FIRST = new UUID(1L, 1L);
+    private static final UUID SECOND = new UUID(2L, 2L);
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void latestProfilesAreReadAfterReopening() throws IOException {
+        Path file = directory.resolve("profiles.bin");
+        
+        PlayerProfileStore store = new PlayerProfileStore(file);
+        store.save(FIRST, new byte[] {1, 2, 3});
+        store.save(SECOND, new byte[] {4});
+        store.save(FIRST, new byte[] {5, 6});
+        store.close();
+        
+        PlayerProfileStore reopened = new PlayerProfileStore(file);
+        assertArrayEquals(new byte[] {5, 6}, reopened.load(FIRST));
+        assertArrayEquals(new byte[] {4}, reopened.load(SECOND));
+        assertNull(reopened.load(new UUID(3L, 3L)));
+        reopened.close();
+    }
+    
+    @Test
+    void partialTrailingRecordIsTruncated() throws IOException {
+        Path file = directory.resolve("profiles.bin");
+        
+        PlayerProfileStore store = new PlayerProfileStore(file);
+        store.save(FIRST, new byte[] {1, 2});
+        store.close();
+        long completeSize = Files.size(file);
+        
+        // A record whose header promises more payload than was written before the crash
+        ByteBuffer partial = ByteBuffer.allocate(Integer.BYTES + Long.BYTES * 2 + 3);
+        partial.putInt(100).putLong(SECOND.getMostSignificantBits()).putLong(SECOND.getLeastSignificantBits());
+        partial.put(new byte[] {7, 7, 7});
+        Files.write(file, partial.array(), StandardOpenOption.APPEND);
+        
+        PlayerProfileStore recovered = new PlayerProfileStore(file);
+        assertEquals(completeSize, Files.size(file));
+        assertArrayEquals(new byte[] {1, 2}, recovered.load(FIRST));
+        assertNull(recovered.load(SECOND));
+        
+        // Records appended after the truncation are read back as well
+        recovered.save(SECOND, new byte[] {8, 9});
+        recovered.close();
+        
+        PlayerProfileStore reopened = new PlayerProfileStore(file);
+        assertArrayEquals(new byte[] {1, 2}, reopened.load(FIRST));
+        assertArrayEquals(new byte[] {8, 9}, reopened.load(SECOND));
+        reopened.close();
+    }
+}
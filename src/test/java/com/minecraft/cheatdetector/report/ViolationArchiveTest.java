@@ -0,0 +1,93 @@
+package com.minecraft.cheatdetector.report;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the per-player index is rebuilt from the segments, including after a crash mid-block.
+ */
+class ViolationArchiveTest {
+    private static final UUID FIRST = new UUID(1L, 1L);
+    private static final UUID SECOND = new UUID(2L, 2L);
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void historyIsRebuiltAfterReopening() throws InterruptedException {
+        ViolationArchive archive = open();
+        archive.append(FIRST, "speed", 1000, 12.5);
+        archive.append(FIRST, "flight", 3000, Double.NaN);
+        archive.append(FIRST, "speed", 2000, 11.0);
+        archive.append(SECOND, "reach", 5000, 4.2);
+        archive.shutdown(5000);
+        
+        ViolationArchive reopened = open();
+        ViolationArchive.History first = reopened.getHistory(FIRST);
+        assertNotNull(first);
+        assertEquals(3, first.count());
+        assertEquals(1000, first.firstMillis());
+        assertEquals(3000, first.lastMillis());
+        assertEquals(new ViolationArchive.TypeCount("speed", 2), first.types().get(0));
+        
+        ViolationArchive.History second = reopened.getHistory(SECOND);
+        assertNotNull(second);
+        assertEquals(1, second.count());
+        assertNull(reopened.getHistory(new UUID(3L, 3L)));
+        reopened.shutdown(5000);
+    }
+    
+    @Test
+    void partialTrailingBlockIsTruncated() throws IOException, InterruptedException {
+        ViolationArchive archive = open();
+        archive.append(FIRST, "speed", 1000, 12.5);
+        archive.shutdown(5000);
+        
+        Path segment = directory.resolve("segment-000001.bin");
+        long completeSize = Files.size(segment);
+        
+        // A block whose header promises more records than were written before the crash
+        ByteBuffer partial = ByteBuffer.allocate(8 + 12);
+        partial.putInt(0x56494F4C).putInt(10).putLong(2000).putInt(0);
+        Files.write(segment, partial.array(), StandardOpenOption.APPEND);
+        
+        ViolationArchive recovered = open();
+        assertEquals(completeSize, Files.size(segment));
+        assertEquals(1, recovered.getHistory(FIRST).count());
+        
+        // Blocks appended after the truncation are read back as well
+        recovered.append(FIRST, "speed", 4000, 13.0);
+        recovered.shutdown(5000);
+        
+        ViolationArchive reopened = open();
+        ViolationArchive.History history = reopened.getHistory(FIRST);
+        assertEquals(2, history.count());
+        assertEquals(4000, history.lastMillis());
+        reopened.shutdown(5000);
+    }
+    
+    /**
+     * Open the archive in the test directory and wait until it has loaded its index.
+     */
+    private ViolationArchive open() throws InterruptedException {
+        ViolationArchive archive = new ViolationArchive(directory, 1024, 10);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!archive.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(archive.isReady(), "archive did not load in time");
+        return archive;
+    }
+}